@@ -5,31 +5,167 @@
 package ataxx;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static ataxx.Bitboard.adjacent;
+import static ataxx.Bitboard.bit;
 import static ataxx.PieceColor.*;
+import static ataxx.TranspositionTable.*;
 import static java.lang.Math.min;
 import static java.lang.Math.max;
 
-/** A Player that computes its own moves.
+/** A Player that computes its own moves.  When pondering (see
+ *  setPonder), it also searches while a manual opponent is deciding on
+ *  a move: after each of its own moves, it guesses the opponent's reply
+ *  from its principal variation, and searches the resulting position on
+ *  a background thread.  If the guess is right, that search simply
+ *  continues, its time limit counting from when it started, so that the
+ *  reply comes sooner; otherwise, it is abandoned, although what it
+ *  stored in the transposition table remains for later searches.
  *  @author Brian Chiang
  */
 class AI extends Player {
 
-    /** Maximum minimax search depth before going to static evaluation. */
+    /** Maximum minimax search depth before going to static evaluation,
+     *  when there is no time limit. */
     private static final int MAX_DEPTH = 4;
+    /** Limit on the depth of iterative deepening under a time limit. */
+    private static final int DEPTH_LIMIT = 60;
+    /** Number of positions visited between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 1024;
+    /** Number of positions the endgame solver may visit when there is
+     *  no time limit, which, unlike a time, yields the same moves on any
+     *  machine. */
+    private static final long ENDGAME_POSITIONS = 100_000;
     /** A position magnitude indicating a win (for red if positive, blue
      *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
+    private static final int WINNING_VALUE =
+        Integer.MAX_VALUE - 2 * DEPTH_LIMIT;
     /** A magnitude greater than a normal value. */
     private static final int INFTY = Integer.MAX_VALUE;
 
+    /* Move ordering (see order) sorts moves by priority, packed together
+     * with their codes in CODE_BITS bits. */
+
+    /** Priority of the transposition-table move. */
+    private static final int HASH_PRIORITY = (1 << 20) - 1;
+    /** Priority of each piece captured by a move. */
+    private static final int CAPTURE_PRIORITY = 1 << 16;
+    /** Priority of the most recent killer move; the other gets half. */
+    private static final int KILLER_PRIORITY = 1 << 15;
+    /** Bound on history scores. */
+    private static final int MAX_HISTORY = 1 << 14;
+    /** Number of bits needed for a move code. */
+    private static final int CODE_BITS = 11;
+
     /** A new AI for GAME that will play MYCOLOR. SEED is used to initialize
      *  a random-number generator for use in move computations.  Identical
      *  seeds produce identical behaviour. */
     AI(Game game, PieceColor myColor, long seed) {
         super(game, myColor);
         _random = new Random(seed);
+        _table = game == null || game.tableBuckets() == 0
+            ? new TranspositionTable()
+            : new TranspositionTable(game.tableBuckets());
+        _moves = new MoveGenerator(DEPTH_LIMIT, true);
+        _timeLimit = Main.timeLimit();
+        _book = Main.book();
+        _evaluator = Main.evaluator();
+        _ponder = Main.ponder();
+        _endgameEmpties = Main.endgameEmpties();
+        _deadline = new AtomicLong(Long.MAX_VALUE);
+        setThreads(Main.threads());
+    }
+
+    /** A helper for parallel searches by MASTER, sharing its
+     *  transposition table, evaluator, and time limit.  Helpers search
+     *  below the root, and so never follow a principal variation (see
+     *  _followPV); their _pv stays empty. */
+    private AI(AI master) {
+        super(master.game(), master.myColor());
+        _table = master._table;
+        _evaluator = master._evaluator;
+        _moves = new MoveGenerator(DEPTH_LIMIT, true);
+        _timeLimit = master._timeLimit;
+        _deadline = master._deadline;
+        clearKillers();
+    }
+
+    /** Limit my searches to about MSEC milliseconds per move, or to
+     *  a fixed depth (see setDepth) if MSEC is 0. */
+    void setTimeLimit(long msec) {
+        _timeLimit = msec;
+    }
+
+    /** Search to DEPTH (initially MAX_DEPTH) when there is no time
+     *  limit. */
+    void setDepth(int depth) {
+        _maxDepth = min(depth, DEPTH_LIMIT);
+    }
+
+    /** Forget the results of my previous searches, so that the next
+     *  starts afresh. */
+    void clearTable() {
+        _table.clear();
+    }
+
+    /** Play the moves in BOOK, when it has them, instead of searching.
+     *  BOOK may be null for none. */
+    void setBook(OpeningBook book) {
+        _book = book;
+    }
+
+    /** Try to solve positions with at most EMPTIES empty squares exactly
+     *  (see EndgameSolver) before searching them.  EMPTIES may be 0 to
+     *  search all positions. */
+    void setEndgame(int empties) {
+        _endgameEmpties = empties;
+    }
+
+    /** Estimate the values of positions with EVALUATOR. */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+    }
+
+    /** Think on my opponent's time, as described in the class comment,
+     *  iff PONDER. */
+    void setPonder(boolean ponder) {
+        _ponder = ponder;
+    }
+
+    /** Forget what my earlier searches learned: the contents of my
+     *  transposition table and my endgame solver's, and the history and
+     *  killer moves of me and my helpers.  My next search then depends
+     *  only on its position. */
+    void clearSearchState() {
+        _table.clear();
+        if (_solver != null) {
+            _solver.clear();
+        }
+        Arrays.fill(_history, 0);
+        clearKillers();
+        for (AI helper : _helpers) {
+            Arrays.fill(helper._history, 0);
+        }
+    }
+
+    /** Search with THREADS threads. */
+    @Override
+    void setThreads(int threads) {
+        _pool = searchPool(threads, _pool);
+        _helpers.clear();
+        _idleHelpers.clear();
     }
 
     @Override
@@ -40,127 +176,598 @@ class AI extends Player {
     @Override
     String getMove() {
         if (!getBoard().canMove(myColor())) {
+            stop();
             game().reportMove(Move.pass(), myColor());
             return "-";
         }
         Main.startTiming();
-        Move move = findMove();
+        Move move = stopPondering(getBoard());
+        if (move == null) {
+            move = game().search(this::findMove);
+        }
         Main.endTiming();
+        SearchStats.publish(_stats);
+        if (Main.stats()) {
+            System.err.println(_stats.toJson());
+        }
         game().reportMove(move, myColor());
+        if (_ponder && !game().getPlayer(myColor().opposite()).isAuto()) {
+            startPondering(move);
+        }
         return move.toString();
     }
 
+    @Override
+    void stop() {
+        stopPondering(null);
+    }
+
+    /** Start searching, in the background, the position that will result
+     *  if my opponent replies to my MOVE from the current position as my
+     *  principal variation predicts, unless there is no prediction or
+     *  there will be nothing to search. */
+    private void startPondering(Move move) {
+        if (_pv.length < 2 || _pv[0] != move) {
+            return;
+        }
+        Board board = new Board(getBoard());
+        board.makeMove(move);
+        if (board.getWinner() != null || !board.legalMove(_pv[1])) {
+            return;
+        }
+        board.makeMove(_pv[1]);
+        if (board.getWinner() != null || !board.canMove(myColor())
+            || board.numEmpty() <= _endgameEmpties
+            || (_book != null && _book.lookup(board) != null)) {
+            return;
+        }
+        _ponderKey = board.key();
+        _ponderStart = System.currentTimeMillis();
+        _deadline.set(Long.MAX_VALUE);
+        int maxDepth = _timeLimit > 0 ? DEPTH_LIMIT : _maxDepth;
+        FutureTask<Move> task =
+            new FutureTask<>(() -> deepen(board, maxDepth,
+                                          new SearchStats(myColor())));
+        Thread thread = new Thread(task, "ataxx-ponder");
+        thread.setDaemon(true);
+        thread.start();
+        _ponderer = task;
+    }
+
+    /** Stop pondering, if I am.  If the position pondered is BOARD,
+     *  first let the search continue until my time limit since it began
+     *  has passed (or, without one, to my search depth), and return the
+     *  move it finds.  Otherwise, abandon it and return null. */
+    private Move stopPondering(Board board) {
+        if (_ponderer == null) {
+            return null;
+        }
+        boolean hit = board != null && board.key() == _ponderKey;
+        if (!hit) {
+            _deadline.set(0);
+        } else if (_timeLimit > 0) {
+            _deadline.set(_ponderStart + _timeLimit);
+        }
+        try {
+            Move move = _ponderer.get();
+            return hit ? move : null;
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("pondering failed", excp);
+        } finally {
+            _ponderer = null;
+        }
+    }
+
     /** Return a move for me from the current position, assuming there
      *  is a move. */
     private Move findMove() {
-        Board b = new Board(getBoard());
+        return findMove(getBoard());
+    }
+
+    /** Return a move for the player to move on BOARD, assuming there is
+     *  a move.  Does not modify BOARD.  Searches to successively greater
+     *  depths, each ordered by the principal variation found by the one
+     *  before.  Without a time limit, stops at the depth set by
+     *  setDepth; otherwise, continues until the time limit passes and
+     *  returns the move found by the last search to complete.  Positions
+     *  in my opening book are not searched at all, and those with few
+     *  enough empty squares (see setEndgame) are first given to my
+     *  endgame solver. */
+    @Override
+    Move findMove(Board board) {
+        SearchStats stats = new SearchStats(board.whoseMove());
+        _stats = stats;
+        Move move = _book == null ? null : _book.lookup(board);
+        if (move != null) {
+            stats.finish(move, "book", 0);
+        } else if (board.numEmpty() <= _endgameEmpties) {
+            move = solveEndgame(board, stats);
+        }
+        if (move != null) {
+            _pv = new Move[0];
+            return move;
+        }
+        return findMove(board, _timeLimit > 0 ? DEPTH_LIMIT : _maxDepth,
+                        stats);
+    }
+
+    /** Return the move found by my endgame solver for the player to move
+     *  on BOARD, if it can prove within its time budget that the move is
+     *  best, or at least that it wins or draws, and otherwise null.  The
+     *  budget is half my time limit, or ENDGAME_POSITIONS positions
+     *  without one.  The positions visited are counted in STATS. */
+    private Move solveEndgame(Board board, SearchStats stats) {
+        if (_solver == null) {
+            _solver = new EndgameSolver();
+        }
+        long nodes = _solver.nodes();
+        boolean solved = _timeLimit > 0
+            ? _solver.solve(board, Math.max(1, _timeLimit / 2))
+            : _solver.solve(board, 0, ENDGAME_POSITIONS);
+        if (solved && (_solver.exact() || _solver.outcome() >= 0)) {
+            stats.finish(_solver.move(), "endgame", _solver.nodes() - nodes);
+            return _solver.move();
+        }
+        stats.visit(_solver.nodes() - nodes);
+        return null;
+    }
+
+    /** Return a move for the player to move on BOARD, as for
+     *  findMove(BOARD), but searching no deeper than MAXDEPTH. */
+    Move findMove(Board board, int maxDepth) {
+        return findMove(board, maxDepth, new SearchStats(board.whoseMove()));
+    }
+
+    /** Return a move for the player to move on BOARD, as for
+     *  findMove(BOARD, MAXDEPTH), recording the search in STATS. */
+    private Move findMove(Board board, int maxDepth, SearchStats stats) {
+        _deadline.set(_timeLimit > 0
+                      ? System.currentTimeMillis() + _timeLimit
+                      : Long.MAX_VALUE);
+        return deepen(board, maxDepth, stats);
+    }
+
+    /** Return a move for the player to move on BOARD, as for
+     *  findMove(BOARD, MAXDEPTH), but searching until _deadline rather
+     *  than my time limit.  The first iteration, to depth 1, always
+     *  completes, however soon the deadline, so that there is a move to
+     *  return.  Records the search in STATS, which become my
+     *  statistics. */
+    private Move deepen(Board board, int maxDepth, SearchStats stats) {
+        Board b = new Board(board);
+        long nodes = _nodes;
+        _stats = stats;
+        _stopped = false;
         _lastFoundMove = null;
-        if (myColor() == RED) {
-            minMax(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
-        } else {
-            minMax(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
+        _pv = new Move[0];
+        clearKillers();
+        ageHistory();
+        for (AI helper : _helpers) {
+            helper.resetHelper();
         }
+        _table.newSearch();
+        for (int depth = 1; depth <= maxDepth; depth += 1) {
+            Move previous = _lastFoundMove;
+            _followPV = true;
+            _mustFinish = depth == 1;
+            int score;
+            if (_pool == null || depth == 1) {
+                score = search(b, depth, 0, -INFTY, INFTY);
+            } else {
+                score = parallelSearch(b, depth);
+            }
+            if (_stopped) {
+                if (previous != null) {
+                    _lastFoundMove = previous;
+                }
+                break;
+            }
+            _pv = principalVariation(b, depth);
+            _stats.iteration(depth, _nodes - nodes, score, _pv);
+        }
+        for (AI helper : _helpers) {
+            _stats.add(helper._stats);
+        }
+        _stats.finish(_lastFoundMove, "search", _nodes - nodes);
         return _lastFoundMove;
     }
 
+    /** Prepare me, a helper, for a new search by my master, keeping
+     *  only an aged copy of my history scores. */
+    private void resetHelper() {
+        _nodes = 0;
+        _stopped = false;
+        _stats = new SearchStats();
+        clearKillers();
+        ageHistory();
+    }
+
+    /** Perform the same search as search(BOARD, DEPTH, 0, -INFTY, INFTY),
+     *  dividing the moves from BOARD among the threads of _pool.  The
+     *  first move (normally the previous principal variation) is searched
+     *  alone.  The best value found so far then bounds the parallel
+     *  searches of the remaining moves, each of which uses its own copy
+     *  of BOARD and a helper AI that no other thread is using (see
+     *  _idleHelpers).  Returns the value of BOARD. */
+    private int parallelSearch(Board board, int depth) {
+        int[] moves = _moves.buffer(0);
+        int numMoves = _moves.generate(board, 0);
+        order(board, moves, numMoves, 0, _pv.length > 0 ? _pv[0] : null);
+        Move first = Move.move(moves[0]);
+        _nodes += 1;
+        board.makeMove(first);
+        int bestScore = -search(board, depth - 1, 1, -INFTY, INFTY);
+        board.undo();
+        if (_stopped) {
+            return 0;
+        }
+        AtomicInteger bound = new AtomicInteger(bestScore);
+        ArrayList<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 1; i < numMoves; i += 1) {
+            Board child = new Board(board);
+            child.makeMove(Move.move(moves[i]));
+            tasks.add(() -> {
+                AI helper = _idleHelpers.poll();
+                if (helper == null) {
+                    helper = new AI(this);
+                    _helpers.add(helper);
+                }
+                try {
+                    int toBeat = bound.get();
+                    int score = -helper.search(child, depth - 1, 1,
+                                               -toBeat - 1, -toBeat);
+                    if (score > toBeat) {
+                        score = -helper.search(child, depth - 1, 1,
+                                               -INFTY, -toBeat);
+                    }
+                    if (score <= toBeat) {
+                        return null;
+                    }
+                    bound.accumulateAndGet(score, Math::max);
+                    return score;
+                } finally {
+                    _idleHelpers.push(helper);
+                }
+            });
+        }
+        List<Future<Integer>> scores = _pool.invokeAll(tasks);
+        for (AI helper : _helpers) {
+            _nodes += helper._nodes;
+            helper._nodes = 0;
+            _stopped |= helper._stopped;
+        }
+        Move bestMove = first;
+        for (int i = 1; i < numMoves; i += 1) {
+            Integer score = result(scores.get(i - 1));
+            if (score != null && score > bestScore) {
+                bestScore = score;
+                bestMove = Move.move(moves[i]);
+            }
+        }
+        if (!_stopped) {
+            _lastFoundMove = bestMove;
+            _table.store(board.key(), depth, EXACT, bestScore, bestMove);
+        }
+        return bestScore;
+    }
+
+    /** Return the value computed by the completed task whose result is
+     *  FUTURE. */
+    private static Integer result(Future<Integer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("parallel search failed", excp);
+        }
+    }
+
+    /** Return the principal variation from BOARD, as recorded in my
+     *  transposition table, up to DEPTH moves long. */
+    private Move[] principalVariation(Board board, int depth) {
+        Board b = new Board(board);
+        Move[] pv = new Move[depth];
+        int len;
+        for (len = 0; len < depth; len += 1) {
+            Move move = TranspositionTable.move(_table.probe(b.key()));
+            if (move == null || b.getWinner() != null || !b.legalMove(move)) {
+                break;
+            }
+            pv[len] = move;
+            b.makeMove(move);
+        }
+        return Arrays.copyOf(pv, len);
+    }
+
     /** The move found by the last call to the findMove method
      *  above. */
     private Move _lastFoundMove;
 
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _foundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _foundMove. If the game is over
-     *  on BOARD, does not set _foundMove. */
-    private int minMax(Board board, int depth, boolean saveMove, int sense,
-                       int alpha, int beta) {
-        /* We use WINNING_VALUE + depth as the winning value so as to favor
-         * wins that happen sooner rather than later (depth is larger the
-         * fewer moves have been made. */
-        int bestScore = 0;
+    /** Time limit for each move in milliseconds, or 0 if there is none. */
+    private long _timeLimit;
+
+    /** Depth of searches without a time limit. */
+    private int _maxDepth = MAX_DEPTH;
+
+    /** Threads for parallel searches, or null if searching with just
+     *  one thread.  The pool may be shared with other players (see
+     *  Player.searchPool). */
+    private ForkJoinPool _pool;
+
+    /** My helpers for parallel searches.  There are as many as there
+     *  have been threads searching for me at once.  Helpers keep their
+     *  move generators and history scores from search to search. */
+    private final List<AI> _helpers = new CopyOnWriteArrayList<>();
+
+    /** The helpers not being used by any thread. */
+    private final ConcurrentLinkedDeque<AI> _idleHelpers =
+        new ConcurrentLinkedDeque<>();
+
+    /** Estimates the values of positions at the leaves of searches. */
+    private Evaluator _evaluator;
+
+    /** Opening book consulted before searching, or null. */
+    private OpeningBook _book;
+
+    /** Largest number of empty squares for which I try my endgame
+     *  solver. */
+    private int _endgameEmpties;
+
+    /** My endgame solver, created when first needed. */
+    private EndgameSolver _solver;
+
+    /** Time (as from System.currentTimeMillis) at which the current search
+     *  must stop, shared with my helpers.  It may be changed by another
+     *  thread while pondering. */
+    private final AtomicLong _deadline;
+
+    /** True iff I ponder (see setPonder). */
+    private boolean _ponder;
+
+    /** The search I am doing on my opponent's time, or null. */
+    private FutureTask<Move> _ponderer;
+
+    /** Key of the position _ponderer is searching. */
+    private long _ponderKey;
+
+    /** Time (as from System.currentTimeMillis) at which _ponderer
+     *  started. */
+    private long _ponderStart;
+
+    /** True iff the current search has run out of time, after which
+     *  search's results are meaningless. */
+    private boolean _stopped;
+
+    /** True iff the current iteration must complete whatever the
+     *  deadline. */
+    private boolean _mustFinish;
+
+    /** Principal variation from the previous iteration of findMove. */
+    private Move[] _pv = new Move[0];
+
+    /** True iff the position being searched was reached by following
+     *  _pv from the root. */
+    private boolean _followPV;
+
+    /** Return the total number of positions visited by my searches. */
+    @Override
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Number of positions visited by my searches. */
+    private long _nodes;
+
+    /** Return the statistics of my last search. */
+    @Override
+    SearchStats stats() {
+        return _stats;
+    }
+
+    /** Statistics of my current or last search. */
+    private SearchStats _stats = new SearchStats();
+
+    /** Return the value of position BOARD, which is PLY moves from the
+     *  root of the search, to the player to move, searching DEPTH moves
+     *  ahead, and record the best move in _lastFoundMove iff PLY is 0.
+     *  This is a principal variation (negamax) search: values are always
+     *  from the point of view of the player to move, and after the first
+     *  move from a position, each remaining one is first searched with a
+     *  null window just to show that it is no better, and searched again
+     *  only if that fails.  The result is exact if it is strictly between
+     *  ALPHA and BETA, and otherwise only a bound: at most ALPHA, or at
+     *  least BETA.  A won position is worth WINNING_VALUE + DEPTH, so as
+     *  to favor wins that happen sooner rather than later.  Moves are made
+     *  and undone on BOARD itself, which is left as it was found.  Returns
+     *  0 promptly, setting _stopped, if the search runs out of time. */
+    private int search(Board board, int depth, int ply, int alpha,
+                       int beta) {
+        _nodes += 1;
+        if (_nodes % CLOCK_INTERVAL == 0 && !_mustFinish
+            && System.currentTimeMillis() >= _deadline.get()) {
+            _stopped = true;
+        }
+        if (_stopped) {
+            return 0;
+        }
         if (depth == 0 || board.getWinner() != null) {
             return staticScore(board, WINNING_VALUE + depth);
-        } else if (sense == 1) {
-            bestScore = -INFTY;
-            ArrayList<Move> listMoves = possMoves(board, board.whoseMove());
-            for (Move move : listMoves) {
-                Board copy = new Board(board);
-                copy.makeMove(move);
-                int score = minMax(copy, depth - 1, false, -1, alpha, beta);
-                if (score > bestScore) {
-                    bestScore = score;
-                    alpha = max(alpha, bestScore);
-                    if (saveMove) {
-                        _lastFoundMove = move;
-                    }
-                    if (alpha >= beta) {
-                        return bestScore;
-                    }
+        }
+        long key = board.key();
+        long entry = _table.probe(key);
+        _stats.probe(entry != MISSING);
+        Move hashMove;
+        if (_followPV && ply < _pv.length) {
+            hashMove = _pv[ply];
+        } else {
+            _followPV = false;
+            hashMove = TranspositionTable.move(entry);
+        }
+        if (entry != MISSING && ply > 0 && !_followPV
+            && TranspositionTable.depth(entry) >= depth) {
+            int score = TranspositionTable.score(entry);
+            switch (TranspositionTable.bound(entry)) {
+            case EXACT:
+                return score;
+            case LOWER:
+                if (score >= beta) {
+                    return score;
                 }
+                break;
+            default:
+                if (score <= alpha) {
+                    return score;
+                }
+                break;
             }
-        } else {
-            bestScore = INFTY;
-            ArrayList<Move> listMoves = possMoves(board, board.whoseMove());
-            for (Move move : listMoves) {
-                Board copy = new Board(board);
-                copy.makeMove(move);
-                int score = minMax(copy, depth - 1, false, 1, alpha, beta);
-                if (score < bestScore) {
-                    bestScore = score;
-                    beta = min(beta, bestScore);
-                    if (saveMove) {
-                        _lastFoundMove = move;
-                    }
-                    if (alpha >= beta) {
-                        return bestScore;
-                    }
+        }
+        int alpha0 = alpha;
+        int bestScore = -INFTY;
+        Move bestMove = null;
+        int[] moves = _moves.buffer(ply);
+        int numMoves = _moves.generate(board, ply);
+        order(board, moves, numMoves, ply, hashMove);
+        int searched;
+        for (searched = 0; searched < numMoves; searched += 1) {
+            int i = searched;
+            Move move = Move.move(moves[i]);
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -search(board, depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(board, depth - 1, ply + 1,
+                                -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(board, depth - 1, ply + 1,
+                                    -beta, -alpha);
+                }
+            }
+            board.undo();
+            _followPV = false;
+            if (_stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    _lastFoundMove = move;
+                }
+                alpha = max(alpha, score);
+                if (alpha >= beta) {
+                    recordCutoff(move, depth, ply);
+                    _stats.cutoff(i);
+                    searched += 1;
+                    break;
                 }
             }
         }
-        return 0;
-    }
-
-    /** Returns a list of possible moves of PLAYER on BOARD. */
-    private ArrayList<Move> possMoves(Board board, PieceColor player) {
-        ArrayList<Move> listMove = new ArrayList<>();
-        for (char col = 'a'; col <= 'g'; col++) {
-            for (char row = '7'; row >= '1'; row--) {
-                int index = board.index(col, row);
-                if (board.get(index) == player) {
-                    for (int i = -2; i <= 2; i++) {
-                        for (int j = -2; j <= 2; j++) {
-                            char col1 = (char) (col + i);
-                            char row1 = (char) (row + j);
-                            Move newMove = Move.move(col, row, col1, row1);
-                            if (board.legalMove(newMove)) {
-                                listMove.add(newMove);
-                            }
-                        }
-                    }
+        _stats.expand(searched);
+        int bound = bestScore <= alpha0 ? UPPER
+            : bestScore >= beta ? LOWER : EXACT;
+        _table.store(key, depth, bound, bestScore, bestMove);
+        return bestScore;
+    }
+
+    /** Sort the first N elements of MOVES, the moves generated at PLY on
+     *  BOARD, into the order in which to search them: HASHMOVE (the move
+     *  recommended by the transposition table or principal variation, if
+     *  not null) first; then by decreasing number of pieces captured; and
+     *  among moves that capture equally, the killer moves at PLY first,
+     *  and then by decreasing history score. */
+    private void order(Board board, int[] moves, int n, int ply,
+                       Move hashMove) {
+        if (n < 2) {
+            return;
+        }
+        long opponents = board.pieces(board.whoseMove().opposite());
+        int hashCode = hashMove == null ? -1 : hashMove.code();
+        for (int i = 0; i < n; i += 1) {
+            int code = moves[i];
+            int priority;
+            if (code == hashCode) {
+                priority = HASH_PRIORITY;
+            } else {
+                Move move = Move.move(code);
+                if (move.isPass()) {
+                    priority = 0;
+                } else {
+                    long captured =
+                        adjacent(bit(move.toIndex())) & opponents;
+                    priority = Long.bitCount(captured) * CAPTURE_PRIORITY;
+                }
+                if (code == _killers[ply][0]) {
+                    priority += KILLER_PRIORITY;
+                } else if (code == _killers[ply][1]) {
+                    priority += KILLER_PRIORITY / 2;
+                } else {
+                    priority += _history[code];
                 }
             }
+            moves[i] = (HASH_PRIORITY - priority) << CODE_BITS | code;
+        }
+        Arrays.sort(moves, 0, n);
+        for (int i = 0; i < n; i += 1) {
+            moves[i] &= (1 << CODE_BITS) - 1;
+        }
+    }
+
+    /** Record that MOVE, made at PLY with DEPTH moves left to search,
+     *  caused a cutoff, for the benefit of order. */
+    private void recordCutoff(Move move, int depth, int ply) {
+        int code = move.code();
+        if (_killers[ply][0] != code) {
+            _killers[ply][1] = _killers[ply][0];
+            _killers[ply][0] = code;
+        }
+        _history[code] += depth * depth;
+        if (_history[code] >= MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    /** Forget the killer moves. */
+    private void clearKillers() {
+        for (int[] killers : _killers) {
+            Arrays.fill(killers, -1);
+        }
+    }
+
+    /** Reduce the weight of old history scores. */
+    private void ageHistory() {
+        for (int i = 0; i < _history.length; i += 1) {
+            _history[i] /= 2;
         }
-        return listMove;
     }
 
-    /** Return a heuristic value for BOARD.  This value is +- WINNINGVALUE in
-     *  won positions, and 0 for ties. */
+    /** Return a heuristic value for BOARD to the player to move, as
+     *  estimated by my evaluator.  This value is +- WINNINGVALUE in won
+     *  positions, and 0 for ties. */
     private int staticScore(Board board, int winningValue) {
         PieceColor winner = board.getWinner();
+        PieceColor me = board.whoseMove();
         if (winner != null) {
-            return switch (winner) {
-            case RED -> winningValue;
-            case BLUE -> -winningValue;
-            default -> 0;
-            };
+            return winner == me ? winningValue
+                : winner == EMPTY ? 0 : -winningValue;
         }
-        int myPieces = board.numPieces(board.whoseMove());
-        int oppPieces = board.numPieces(board.whoseMove().opposite());
-        return myPieces - oppPieces;
+        return _evaluator.evaluate(board);
     }
 
     /** Pseudo-random number generator for move computation. */
     private Random _random = new Random();
+
+    /** Scores of positions searched so far, shared across moves. */
+    private final TranspositionTable _table;
+
+    /** Source of the moves searched at each ply.  Clone moves that lead
+     *  to the same position are generated only once. */
+    private final MoveGenerator _moves;
+
+    /** The two most recent moves at each ply that caused cutoffs, by
+     *  code, or -1. */
+    private final int[][] _killers = new int[DEPTH_LIMIT + 1][2];
+
+    /** Scores of moves, by code, reflecting how often and how deep in the
+     *  search they have caused cutoffs. */
+    private final int[] _history = new int[Move.NUM_MOVES];
 }
@@ -0,0 +1,82 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the AI class.
+ *  @author Brian Chiang
+ */
+public class AITest {
+
+    /** Check that, however short its time limit, the AI always finds a
+     *  legal move, by playing out a whole game at one millisecond per
+     *  move. */
+    @Test
+    public void testShortTimeLimit() {
+        Board board = new Board();
+        AI ai = new AI(null, RED, 0);
+        ai.setTimeLimit(1);
+        while (board.getWinner() == null) {
+            Move move = ai.findMove(board);
+            assertNotNull("no move found", move);
+            assertTrue("illegal move " + move, board.legalMove(move));
+            board.makeMove(move);
+        }
+    }
+
+    /** Check that an AI searching with several threads, whose helpers
+     *  are reused from search to search, finds legal moves and counts
+     *  the positions its helpers visit. */
+    @Test
+    public void testParallelSearch() {
+        Board board = new Board();
+        AI ai = new AI(null, RED, 0);
+        ai.setTimeLimit(0);
+        ai.setDepth(3);
+        ai.setThreads(2);
+        try {
+            for (int i = 0; i < 10 && board.getWinner() == null; i += 1) {
+                long nodes = ai.nodes();
+                Move move = ai.findMove(board);
+                assertTrue("illegal move " + move, board.legalMove(move));
+                assertEquals("positions not counted", ai.nodes() - nodes,
+                             ai.stats().nodes());
+                board.makeMove(move);
+            }
+        } finally {
+            ai.setThreads(1);
+        }
+    }
+
+    /** Check that the statistics of a move include the time and
+     *  positions of whatever found it, counting it as one move. */
+    @Test
+    public void testStats() {
+        AI ai = new AI(null, RED, 0);
+        ai.setTimeLimit(0);
+        ai.setDepth(2);
+        ai.setEndgame(0);
+        Board board = new Board();
+        ai.findMove(board);
+        assertEquals("search", ai.stats().source());
+        assertEquals(1, ai.stats().moves());
+        assertEquals(1, ai.stats().searches());
+        assertEquals(2, ai.stats().depth());
+        board.setPosition("rrrrrrr" + "rrrrrrr" + "rrrbbbb" + "bbbbbbb"
+                          + "bbbbbbb" + "rrbrrrr" + "-rbrrrr", RED);
+        ai.setEndgame(4);
+        Move move = ai.findMove(board);
+        assertTrue("illegal move " + move, board.legalMove(move));
+        assertEquals("endgame", ai.stats().source());
+        assertEquals(1, ai.stats().moves());
+        assertEquals(0, ai.stats().searches());
+        assertTrue("positions not counted", ai.stats().nodes() > 0);
+    }
+
+}
@@ -0,0 +1,311 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ataxx.PieceColor.*;
+import static ataxx.GameException.error;
+
+/** Runs the AI on each of a file of positions, for offline analysis (see
+ *  the --analyze option of Main).  Each position is given either on one
+ *  line, as
+ *      r5b/7/7/7/7/7/b5r b
+ *  listing the rows from 7 down to 1, separated by slashes, with 'r' for
+ *  red, 'b' for blue, 'X' for a block, and '-' or a digit N for one or N
+ *  empty squares, followed optionally by the player to move (r or b;
+ *  default r); or as the seven rows printed by Board.toString (with or
+ *  without legend, and with or without the "===" lines of the dump
+ *  command), followed optionally by a line containing just "red" or
+ *  "blue" for the player to move.  Blank lines and lines starting with
+ *  '#' are ignored.
+ *
+ *  The positions are divided among a pool of threads, each with its own
+ *  AI configured as by Main's options.  For each position, in order, the
+ *  analysis writes a line giving the line number at which the position
+ *  starts, the move found, the score and depth of the last completed
+ *  iteration of the search, the positions visited, the time in
+ *  milliseconds, and the source of the move ("search", "book",
+ *  "endgame", "pass" if the player to move must pass, or "over" if the
+ *  game is over, with no move), either as JSON or as comma-separated
+ *  values after a header line.  Bad positions are reported separately
+ *  and skipped.  Only a bounded window of positions is
+ *  read ahead of the output, so files of any length may be analyzed.
+ *  @author Brian Chiang
+ */
+class Analyzer {
+
+    /** Number of positions that may be read ahead of the output per
+     *  thread. */
+    static final int WINDOW_PER_JOB = 16;
+
+    /** Header line of CSV output. */
+    static final String CSV_HEADER =
+        "line,move,score,depth,nodes,msec,source";
+
+    /** An analyzer that uses JOBS threads, searching to DEPTH (if
+     *  positive, and when there is no time limit; otherwise the AI's
+     *  default), and writing its results to OUT, as CSV iff CSV, and
+     *  its reports of bad positions to ERR. */
+    Analyzer(int jobs, int depth, boolean csv, PrintWriter out,
+             PrintWriter err) {
+        _jobs = jobs;
+        _csv = csv;
+        _out = out;
+        _err = err;
+        _ais = ThreadLocal.withInitial(() -> {
+            AI ai = new AI(null, RED, 0);
+            if (depth > 0) {
+                ai.setDepth(depth);
+            }
+            return ai;
+        });
+    }
+
+    /** Analyze the positions in INPUT, writing the results to my output
+     *  and flushing it.  Returns the number of bad positions.  Each
+     *  position is analyzed as if it were the first, so that the results
+     *  do not depend on how the positions are divided among threads. */
+    int analyze(Reader input) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(_jobs);
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        BufferedReader lines = new BufferedReader(input);
+        if (_csv) {
+            _out.println(CSV_HEADER);
+        }
+        try {
+            for (Position position = read(lines); position != null;
+                 position = read(lines)) {
+                final Position p = position;
+                pending.add(pool.submit(() -> analyze(p)));
+                if (pending.size() >= _jobs * WINDOW_PER_JOB) {
+                    _out.println(pending.remove().get());
+                }
+            }
+            while (!pending.isEmpty()) {
+                _out.println(pending.remove().get());
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw error("analysis failed: %s", excp.getCause());
+        } finally {
+            pool.shutdownNow();
+            _out.flush();
+            _err.flush();
+        }
+        return _bad;
+    }
+
+    /** Return the result line for POSITION, as described in the class
+     *  comment. */
+    private String analyze(Position position) {
+        Board board = _boards.get();
+        board.setPosition(position._contents, position._next);
+        long start = System.nanoTime();
+        String move, source;
+        int score, depth;
+        long nodes;
+        score = depth = 0;
+        nodes = 0;
+        if (board.getWinner() != null) {
+            move = "";
+            source = "over";
+        } else if (!board.canMove(board.whoseMove())) {
+            move = Move.pass().toString();
+            source = "pass";
+        } else {
+            AI ai = _ais.get();
+            ai.clearSearchState();
+            move = ai.findMove(board).toString();
+            SearchStats stats = ai.stats();
+            nodes = stats.nodes();
+            score = stats.score();
+            depth = stats.depth();
+            source = stats.source();
+        }
+        long msec = (System.nanoTime() - start) / 1_000_000;
+        if (_csv) {
+            return String.format("%d,%s,%d,%d,%d,%d,%s", position._line,
+                                 move, score, depth, nodes, msec, source);
+        }
+        return String.format("{\"line\":%d,\"move\":%s,\"score\":%d,"
+                             + "\"depth\":%d,\"nodes\":%d,\"msec\":%d,"
+                             + "\"source\":\"%s\"}", position._line,
+                             move.isEmpty() ? "null" : "\"" + move + "\"",
+                             score, depth, nodes, msec, source);
+    }
+
+    /** Return the next position from LINES, or null at the end,
+     *  reporting and skipping bad positions. */
+    private Position read(BufferedReader lines) throws IOException {
+        StringBuilder rows = new StringBuilder();
+        int start;
+        start = 0;
+        while (true) {
+            String line = nextLine(lines);
+            String text = line == null ? "" : line.strip();
+            boolean ignored = line != null && (text.isEmpty()
+                || text.startsWith("#") || text.equals(LEGEND)
+                || text.equals(DUMP_DELIMITER));
+            if (ignored) {
+                continue;
+            } else if (rows.length() == Bitboard.SQUARES) {
+                Position position =
+                    new Position(start, rows.toString(), RED);
+                if (text.equalsIgnoreCase("blue")) {
+                    position._next = BLUE;
+                } else if (!text.equalsIgnoreCase("red")) {
+                    _pushedBack = line;
+                }
+                return position;
+            } else if (line == null) {
+                if (rows.length() > 0) {
+                    bad(start, "incomplete board");
+                }
+                return null;
+            }
+            try {
+                if (text.contains("/")) {
+                    if (rows.length() > 0) {
+                        throw error("incomplete board");
+                    }
+                    return parseLine(text);
+                }
+                if (rows.length() == 0) {
+                    start = _line;
+                }
+                rows.append(parseRow(text));
+            } catch (GameException excp) {
+                bad(rows.length() > 0 ? start : _line, excp.getMessage());
+                rows.setLength(0);
+            }
+        }
+    }
+
+    /** Return the next line from LINES (null at the end), which is the
+     *  line pushed back by read, if any. */
+    private String nextLine(BufferedReader lines) throws IOException {
+        if (_pushedBack != null) {
+            String line = _pushedBack;
+            _pushedBack = null;
+            return line;
+        }
+        _line += 1;
+        return lines.readLine();
+    }
+
+    /** Return the position given on one line as TEXT, which starts at
+     *  line _line. */
+    private Position parseLine(String text) {
+        String[] fields = text.split("\\s+");
+        String[] rows = fields[0].split("/", -1);
+        if (fields.length > 2 || rows.length != Board.SIDE) {
+            throw error("malformed position");
+        }
+        StringBuilder contents = new StringBuilder();
+        for (String row : rows) {
+            int length = contents.length();
+            for (char c : row.toCharArray()) {
+                if (c >= '1' && c <= '0' + Board.SIDE) {
+                    contents.append("-".repeat(c - '0'));
+                } else if ("rbX-".indexOf(c) >= 0) {
+                    contents.append(c);
+                } else {
+                    throw error("bad square in position: '%c'", c);
+                }
+            }
+            if (contents.length() - length != Board.SIDE) {
+                throw error("row must have %d squares", Board.SIDE);
+            }
+        }
+        PieceColor next = RED;
+        if (fields.length == 2) {
+            if (fields[1].equals("b")) {
+                next = BLUE;
+            } else if (!fields[1].equals("r")) {
+                throw error("player to move must be r or b");
+            }
+        }
+        return new Position(_line, contents.toString(), next);
+    }
+
+    /** Return the squares of the row of a board dump on line TEXT, as
+     *  for Board.setPosition. */
+    private String parseRow(String text) {
+        String[] squares = text.split("\\s+");
+        int first = squares.length == Board.SIDE + 1
+            && squares[0].matches("[1-7]") ? 1 : 0;
+        if (squares.length - first != Board.SIDE) {
+            throw error("unrecognized line");
+        }
+        StringBuilder row = new StringBuilder();
+        for (int i = first; i < squares.length; i += 1) {
+            if (!squares[i].matches("[rbX-]")) {
+                throw error("bad square in position: '%s'", squares[i]);
+            }
+            row.append(squares[i]);
+        }
+        return row.toString();
+    }
+
+    /** Report a bad position at line LINE, described by MSG. */
+    private void bad(int line, String msg) {
+        _err.printf("line %d: %s%n", line, msg);
+        _bad += 1;
+    }
+
+    /** A position read from the input. */
+    private static class Position {
+        /** The position starting at line LINE whose squares are
+         *  CONTENTS (as for Board.setPosition), with NEXT to move. */
+        Position(int line, String contents, PieceColor next) {
+            _line = line;
+            _contents = contents;
+            _next = next;
+        }
+
+        /** Line at which the position starts. */
+        private final int _line;
+        /** Contents of the squares. */
+        private final String _contents;
+        /** Player to move. */
+        private PieceColor _next;
+    }
+
+    /** The line printed before and after the board by the dump
+     *  command. */
+    private static final String DUMP_DELIMITER = "===";
+
+    /** The column labels printed by Board.toString(true). */
+    private static final String LEGEND = "a b c d e f g";
+
+    /** Number of threads. */
+    private final int _jobs;
+    /** True iff writing CSV. */
+    private final boolean _csv;
+    /** Where results are written. */
+    private final PrintWriter _out;
+    /** Where bad positions are reported. */
+    private final PrintWriter _err;
+    /** Number of the last line read. */
+    private int _line;
+    /** A line read but not yet processed by read, or null. */
+    private String _pushedBack;
+    /** Number of bad positions. */
+    private int _bad;
+
+    /** Each thread's board for setting up positions. */
+    private final ThreadLocal<Board> _boards =
+        ThreadLocal.withInitial(Board::new);
+    /** Each thread's AI. */
+    private final ThreadLocal<AI> _ais;
+}
@@ -0,0 +1,82 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the Analyzer class.
+ *  @author Brian Chiang
+ */
+public class AnalyzerTest {
+
+    @Test
+    public void testAnalyzer() throws IOException {
+        Board b = new Board();
+        b.setPosition("r-----b" + "-".repeat(35) + "b-----r", BLUE);
+        assertEquals(new Board().toString(), b.toString());
+        assertEquals(BLUE, b.whoseMove());
+        String input = "# positions\n"
+            + "r5b/7/7/7/7/7/b5r b\n"
+            + "===\n" + new Board() + "===\n"
+            + "rrrrrrr/7/7/7/7/7/7\n"
+            + "bad\n";
+        StringWriter output = new StringWriter();
+        StringWriter errors = new StringWriter();
+        Analyzer analyzer =
+            new Analyzer(2, 2, true, new PrintWriter(output),
+                         new PrintWriter(errors));
+        assertEquals("wrong number of bad positions", 1,
+                     analyzer.analyze(new StringReader(input)));
+        assertEquals("line 13: unrecognized line",
+                     errors.toString().strip());
+        String[] lines = output.toString().split("\\R");
+        assertEquals(4, lines.length);
+        assertEquals(Analyzer.CSV_HEADER, lines[0]);
+        assertTrue(lines[1], lines[1].matches("2,a1-[a-g][1-7],.*,search"));
+        assertTrue(lines[2], lines[2].matches("4,[ag][17]-.*,search"));
+        assertTrue(lines[3], lines[3].matches("12,,0,0,0,\\d+,over"));
+    }
+
+    /** Check that the analysis of each position is the same however
+     *  many threads share the positions. */
+    @Test
+    public void testJobs() throws IOException {
+        StringBuilder input = new StringBuilder();
+        Board b = new Board();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(23);
+        for (int i = 0; i < 8; i += 1) {
+            for (int k = 0; k < 3; k += 1) {
+                int n = MoveGenerator.generate(b, moves, false);
+                b.makeMove(Move.move(moves[random.nextInt(n)]));
+            }
+            input.append("===\n").append(b).append("===\n")
+                .append(b.whoseMove() == RED ? "red\n" : "blue\n");
+        }
+        String[] results = new String[2];
+        for (int jobs = 1; jobs <= 2; jobs += 1) {
+            StringWriter output = new StringWriter();
+            Analyzer analyzer =
+                new Analyzer(jobs, 3, true, new PrintWriter(output),
+                             new PrintWriter(new StringWriter()));
+            assertEquals("bad positions", 0,
+                         analyzer.analyze(new StringReader(
+                             input.toString())));
+            results[jobs - 1] =
+                output.toString().replaceAll(",\\d+,(\\w+)\\R", ",$1\n");
+        }
+        assertEquals("results depend on threads", results[0], results[1]);
+    }
+
+}
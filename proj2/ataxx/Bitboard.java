@@ -0,0 +1,166 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+/** Bit-mask operations on sets of playable squares.  A set of squares
+ *  is a long in which bit number B stands for the square in row B / SIDE
+ *  and column B % SIDE (counting from 0 at a1).  Only the low
+ *  SIDE * SIDE bits of a set are ever used.
+ *  @author Brian Chiang
+ */
+final class Bitboard {
+
+    /** Number of squares on a side of the board. */
+    static final int SIDE = Move.SIDE;
+
+    /** Length of a side of the extended board. */
+    static final int EXTENDED_SIDE = Move.EXTENDED_SIDE;
+
+    /** Number of playable squares. */
+    static final int SQUARES = SIDE * SIDE;
+
+    /** The set of all playable squares. */
+    static final long ALL = (1L << SQUARES) - 1;
+
+    /** Number of rings of squares around the center square (see
+     *  ring). */
+    static final int RINGS = (SIDE + 1) / 2;
+
+    /** Number of symmetries of the board (see reflect). */
+    static final int SYMMETRIES = 8;
+
+    /** The set of squares in column a. */
+    static final long COL_A;
+
+    /** The set of squares in column g. */
+    static final long COL_G;
+
+    /** Not instantiable. */
+    private Bitboard() {
+    }
+
+    /** Return the bit number of the square with linearized index SQ, or
+     *  -1 if SQ is in the border. */
+    static int bit(int sq) {
+        return BIT[sq];
+    }
+
+    /** Return the linearized index of the square with bit number B. */
+    static int square(int b) {
+        return SQUARE[b];
+    }
+
+    /** Return the set containing only the square with linearized index
+     *  SQ, which must be playable. */
+    static long mask(int sq) {
+        return 1L << BIT[sq];
+    }
+
+    /** Return the set of playable squares within one row and column of some
+     *  square in SET, including SET itself. */
+    static long dilate(long set) {
+        long row =
+            (set | ((set << 1) & ~COL_A) | ((set >>> 1) & ~COL_G)) & ALL;
+        return (row | (row << SIDE) | (row >>> SIDE)) & ALL;
+    }
+
+    /** Return the set of playable squares within two rows and columns of
+     *  some square in SET, including SET itself. */
+    static long reach(long set) {
+        return dilate(dilate(set));
+    }
+
+    /** Return the set of squares adjacent to the square with bit number B
+     *  (the destinations of extending moves from it). */
+    static long adjacent(int b) {
+        return ADJACENT[b];
+    }
+
+    /** Return the set of squares exactly two rows or columns away from the
+     *  square with bit number B (the destinations of jumps from it). */
+    static long jumps(int b) {
+        return JUMPS[b];
+    }
+
+    /** Return the ring containing the square with bit number B: the
+     *  number of rows or columns (whichever is larger) between it and the
+     *  center square.  Ring RINGS - 1 is the edge of the board. */
+    static int ring(int b) {
+        return RING[b];
+    }
+
+    /** Return the bit number of the square to which symmetry number SYM,
+     *  0 <= SYM < SYMMETRIES, carries the square with bit number B.
+     *  Bit 0 of SYM reverses the columns, bit 1 reverses the rows, and
+     *  bit 2 then exchanges rows with columns.  Symmetry 0 is the
+     *  identity. */
+    static int reflect(int sym, int b) {
+        return REFLECT[sym][b];
+    }
+
+    /** Return the number of the symmetry that undoes symmetry SYM. */
+    static int inverse(int sym) {
+        return INVERSE[sym];
+    }
+
+    /** Maps linearized indices to bit numbers (-1 for the border). */
+    private static final int[] BIT = new int[EXTENDED_SIDE * EXTENDED_SIDE];
+
+    /** Maps bit numbers to linearized indices. */
+    private static final int[] SQUARE = new int[SQUARES];
+
+    /** Sets of adjacent squares, indexed by bit number. */
+    private static final long[] ADJACENT = new long[SQUARES];
+
+    /** Sets of squares a jump away, indexed by bit number. */
+    private static final long[] JUMPS = new long[SQUARES];
+
+    /** Rings of the squares, indexed by bit number. */
+    private static final int[] RING = new int[SQUARES];
+
+    /** Images of each bit number under each symmetry. */
+    private static final int[][] REFLECT = new int[SYMMETRIES][SQUARES];
+
+    /** Inverses of the symmetries. */
+    private static final int[] INVERSE = new int[SYMMETRIES];
+
+    static {
+        long colA, colG;
+        colA = colG = 0;
+        for (int r = 0; r < SIDE; r += 1) {
+            colA |= 1L << (r * SIDE);
+            colG |= 1L << (r * SIDE + SIDE - 1);
+        }
+        COL_A = colA;
+        COL_G = colG;
+
+        Arrays.fill(BIT, -1);
+        for (int b = 0; b < SQUARES; b += 1) {
+            int sq = (b / SIDE + 2) * EXTENDED_SIDE + b % SIDE + 2;
+            BIT[sq] = b;
+            SQUARE[b] = sq;
+            long self = 1L << b;
+            ADJACENT[b] = dilate(self) & ~self;
+            JUMPS[b] = reach(self) & ~dilate(self);
+            RING[b] = Math.max(Math.abs(b % SIDE - SIDE / 2),
+                               Math.abs(b / SIDE - SIDE / 2));
+            for (int sym = 0; sym < SYMMETRIES; sym += 1) {
+                int c = (sym & 1) == 0 ? b % SIDE : SIDE - 1 - b % SIDE,
+                    r = (sym & 2) == 0 ? b / SIDE : SIDE - 1 - b / SIDE;
+                REFLECT[sym][b] = (sym & 4) == 0 ? r * SIDE + c : c * SIDE + r;
+            }
+        }
+        for (int sym = 0; sym < SYMMETRIES; sym += 1) {
+            for (int inv = 0; inv < SYMMETRIES; inv += 1) {
+                if (REFLECT[inv][REFLECT[sym][SQUARES - 2]] == SQUARES - 2
+                    && REFLECT[inv][REFLECT[sym][1]] == 1) {
+                    INVERSE[sym] = inv;
+                }
+            }
+        }
+    }
+}
@@ -7,13 +7,14 @@ package ataxx;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Stack;
+import java.util.Random;
 import java.util.Formatter;
 
 import java.util.function.Consumer;
 
 import static ataxx.PieceColor.*;
 import static ataxx.GameException.error;
+import static ataxx.Bitboard.*;
 
 /** An Ataxx board.   The squares are labeled by column (a char value between
  *  'a' - 2 and 'g' + 2) and row (a char value between '1' - 2 and '7'
@@ -33,6 +34,11 @@ import static ataxx.GameException.error;
  *  integer, which we call its "linearized index".  This is simply the
  *  number of the square in row-major order (counting from 0).
  *
+ *  Alongside the array of squares, the board keeps bit masks (see
+ *  Bitboard) of the red pieces, blue pieces, and blocks, so that move
+ *  generation, captures, and piece counts reduce to shifts, ANDs, and
+ *  population counts.
+ *
  *  Moves on this board are denoted by Moves.
  *  @author Brian Chiang
  */
@@ -48,6 +54,13 @@ class Board {
     /** Number of consecutive non-extending moves before game ends. */
     static final int JUMP_LIMIT = 25;
 
+    /** Index of the count of liberties among the accumulated features
+     *  (see accumulated). */
+    static final int LIBERTIES = RINGS;
+
+    /** Number of accumulated features (see accumulated). */
+    static final int ACCUMULATORS = LIBERTIES + 1;
+
     /** A new, cleared board in the initial configuration. */
     Board() {
         _board = new PieceColor[EXTENDED_SIDE * EXTENDED_SIDE];
@@ -56,58 +69,91 @@ class Board {
     }
 
     /** A board whose initial contents are copied from BOARD0, but whose
-     *  undo history is clear, and whose notifier does nothing. */
+     *  undo history is clear, and whose notifier does nothing.  The copy
+     *  and BOARD0 share no mutable state, so moves may be made and undone
+     *  on either without affecting the other. */
     Board(Board board0) {
-        _board = board0._board.clone();
+        _board = new PieceColor[board0._board.length];
+        copyContents(board0);
         _whoseMove = board0.whoseMove();
-        incrPieces(RED, board0.redPieces() - redPieces());
-        incrPieces(BLUE, board0.bluePieces() - bluePieces());
-        numEmpty = board0.numEmpty;
         _jumps = board0._jumps;
+        _totalOpen = board0._totalOpen;
         numPass = board0.numPass;
-        _allMoves = board0._allMoves;
-        _undoSquares = board0._undoSquares;
-        _undoPieces = board0._undoPieces;
+        _winner = board0._winner;
         setNotifier(NOP);
     }
 
+    /** Return a 64-bit Zobrist hash of the current position, including
+     *  the player to move.  It is maintained incrementally as squares
+     *  change, so this takes constant time.  Equal positions have equal
+     *  keys; unequal positions have equal keys with negligible
+     *  probability. */
+    long key() {
+        return _whoseMove == BLUE ? _key ^ BLUE_TO_MOVE : _key;
+    }
+
+    /** Return the key (see key()) of the position obtained by applying
+     *  symmetry number SYM (see Bitboard.reflect) to this one. */
+    long key(int sym) {
+        long result = _whoseMove == BLUE ? BLUE_TO_MOVE : 0;
+        long[] sets = { _blocks, _red, _blue };
+        for (int i = 0; i < sets.length; i += 1) {
+            for (long set = sets[i]; set != 0; set &= set - 1) {
+                int b = Long.numberOfTrailingZeros(set);
+                result ^= ZOBRIST[reflect(sym, b)][i];
+            }
+        }
+        return result;
+    }
+
     /** Return the linearized index of square COL ROW. */
     static int index(char col, char row) {
         return (row - '1' + 2) * EXTENDED_SIDE + (col - 'a' + 2);
     }
 
-    /** Return the linearized index of the square that is DC columns and DR
-     *  rows away from the square with index SQ. */
-    static int neighbor(int sq, int dc, int dr) {
-        return sq + dc + dr * EXTENDED_SIDE;
-    }
-
     /** Clear me to my starting state, with pieces in their initial
-     *  positions and no blocks. */
+     *  positions and no blocks.  The contents are copied from INITIAL,
+     *  which is set up square by square only once, and the move list and
+     *  undo journal are emptied in place, so clearing allocates
+     *  nothing. */
     void clear() {
         _whoseMove = RED;
-        for (char i = 'a'; i <= 'g'; i++) {
-            for (char j = '1'; j <= '7'; j++) {
-                unrecordedSet(i, j, EMPTY);
+        if (INITIAL == null) {
+            for (char i = 'a'; i <= 'g'; i++) {
+                for (char j = '1'; j <= '7'; j++) {
+                    unrecordedSet(i, j, EMPTY);
+                }
             }
+            unrecordedSet('a', '1', BLUE);
+            unrecordedSet('g', '7', BLUE);
+            unrecordedSet('a', '7', RED);
+            unrecordedSet('g', '1', RED);
+        } else {
+            copyContents(INITIAL);
         }
-        unrecordedSet('a', '1', BLUE);
-        unrecordedSet('g', '7', BLUE);
-        unrecordedSet('a', '7', RED);
-        unrecordedSet('g', '1', RED);
-        _allMoves = new ArrayList<>();
-        _undoSquares = new Stack<>();
-        _undoPieces = new Stack<>();
-        incrPieces(RED, 2 - redPieces());
-        incrPieces(BLUE, 2 - bluePieces());
-        numBlocks = 0;
-        numEmpty = SIDE * SIDE - 4;
+        _allMoves.clear();
+        _undoSize = 0;
+        _totalOpen = SQUARES;
         _jumps = 0;
         numPass = 0;
         numTotal = 0;
         _winner = null;
     }
 
+    /** Set the contents of my squares, and the piece sets, key, and
+     *  accumulators that reflect them, to those of BOARD0. */
+    private void copyContents(Board board0) {
+        System.arraycopy(board0._board, 0, _board, 0, _board.length);
+        _red = board0._red;
+        _blue = board0._blue;
+        _blocks = board0._blocks;
+        _key = board0._key;
+        for (int i = 0; i < _accumulators.length; i += 1) {
+            System.arraycopy(board0._accumulators[i], 0, _accumulators[i],
+                             0, ACCUMULATORS);
+        }
+    }
+
     /** Return the winner, if there is one yet, and otherwise null.  Returns
      *  EMPTY in the case of a draw, which can happen as a result of there
      *  having been MAX_JUMPS consecutive jumps without intervening extends,
@@ -128,12 +174,38 @@ class Board {
 
     /** Return number of COLOR pieces on the board. */
     int numPieces(PieceColor color) {
-        return _numPieces[color.ordinal()];
-    }
-
-    /** Increment numPieces(COLOR) by K. */
-    private void incrPieces(PieceColor color, int k) {
-        _numPieces[color.ordinal()] += k;
+        return Long.bitCount(pieces(color));
+    }
+
+    /** Return number of empty squares on the board. */
+    int numEmpty() {
+        return SQUARES - Long.bitCount(_red | _blue | _blocks);
+    }
+
+    /** Return the accumulated feature number K for the pieces of WHO,
+     *  which is RED or BLUE.  For 0 <= K < RINGS, this is the number of
+     *  WHO's pieces in ring K (see Bitboard.ring), so that K = RINGS - 1
+     *  counts pieces on the edge of the board.  Feature LIBERTIES is the
+     *  number of pairs of adjacent squares in which one holds a piece of
+     *  WHO and the other is empty.  These are kept up to date as squares
+     *  change (and change back on undo), so this takes constant time. */
+    int accumulated(PieceColor who, int k) {
+        return _accumulators[who == RED ? 0 : 1][k];
+    }
+
+    /** Return the set of squares (as a Bitboard mask) that contain
+     *  COLOR. */
+    long pieces(PieceColor color) {
+        switch (color) {
+        case RED:
+            return _red;
+        case BLUE:
+            return _blue;
+        case BLOCKED:
+            return _blocks;
+        default:
+            return ALL & ~(_red | _blue | _blocks);
+        }
     }
 
     /** The current contents of square CR, where 'a'-2 <= C <= 'g'+2, and
@@ -158,33 +230,77 @@ class Board {
      *  undoable. */
     private void set(int sq, PieceColor v) {
         addUndo(sq);
-        incrPieces(get(sq), -1);
-        _board[sq] = v;
-        incrPieces(v, 1);
+        unrecordedSet(sq, v);
     }
 
     /** Set square at C R to V (not undoable). This is used for changing
      * contents of the board without updating the undo stacks. */
     private void unrecordedSet(char c, char r, PieceColor v) {
-        _board[index(c, r)] = v;
+        unrecordedSet(index(c, r), v);
     }
 
     /** Set square at linearized index SQ to V (not undoable). This is used
      * for changing contents of the board without updating the undo stacks. */
     private void unrecordedSet(int sq, PieceColor v) {
+        _key ^= zobrist(sq, _board[sq]) ^ zobrist(sq, v);
+        long bit = mask(sq);
+        accumulate(bit(sq), v);
+        _red &= ~bit;
+        _blue &= ~bit;
+        _blocks &= ~bit;
+        switch (v) {
+        case RED:
+            _red |= bit;
+            break;
+        case BLUE:
+            _blue |= bit;
+            break;
+        case BLOCKED:
+            _blocks |= bit;
+            break;
+        default:
+            break;
+        }
         _board[sq] = v;
     }
 
+    /** Update _accumulators for changing the square with bit number B to
+     *  V, assuming that the piece sets do not yet reflect the change. */
+    private void accumulate(int b, PieceColor v) {
+        long bit = 1L << b, adj = adjacent(b);
+        long empty = ALL & ~(_red | _blue | _blocks);
+        int r = ring(b);
+        boolean wasEmpty = (empty & bit) != 0,
+            isEmpty = v == EMPTY || v == null;
+        if ((_red & bit) != 0) {
+            _accumulators[0][r] -= 1;
+            _accumulators[0][LIBERTIES] -= Long.bitCount(adj & empty);
+        } else if ((_blue & bit) != 0) {
+            _accumulators[1][r] -= 1;
+            _accumulators[1][LIBERTIES] -= Long.bitCount(adj & empty);
+        }
+        if (wasEmpty != isEmpty) {
+            int sign = isEmpty ? 1 : -1;
+            _accumulators[0][LIBERTIES] += sign * Long.bitCount(adj & _red);
+            _accumulators[1][LIBERTIES] += sign * Long.bitCount(adj & _blue);
+        }
+        if (v == RED || v == BLUE) {
+            int[] mine = _accumulators[v == RED ? 0 : 1];
+            mine[r] += 1;
+            mine[LIBERTIES] += Long.bitCount(adj & empty);
+        }
+    }
+
     /** Return true iff MOVE is legal on the current board. */
     boolean legalMove(Move move) {
         if (move == null) {
             return false;
         }
-        PieceColor me = get(move.fromIndex());
-        PieceColor opp = get(move.toIndex());
         if (move.isPass()) {
             return !canMove(_whoseMove);
         }
+        PieceColor me = get(move.fromIndex());
+        PieceColor opp = get(move.toIndex());
         if (me != _whoseMove) {
             return false;
         }
@@ -205,27 +321,7 @@ class Board {
     /** Return true iff player WHO can move, ignoring whether it is
      *  that player's move and whether the game is over. */
     boolean canMove(PieceColor who) {
-        PieceColor turn = _whoseMove;
-        _whoseMove = who;
-        for (char col = 'a'; col <= 'g'; col++) {
-            for (char row = '7'; row >= '1'; row--) {
-                int index = index(col, row);
-                if (get(index) == who) {
-                    for (int i = -2; i <= 2; i++) {
-                        for (int j = -2; j <= 2; j++) {
-                            char col1 = (char) (col + i);
-                            char row1 = (char) (row + j);
-                            if (legalMove(col, row, col1, row1)) {
-                                _whoseMove = turn;
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        _whoseMove = turn;
-        return false;
+        return MoveGenerator.canMove(pieces(who), pieces(EMPTY));
     }
 
     /** Return the color of the player who has the next move.  The
@@ -294,43 +390,40 @@ class Board {
             _jumps += 1;
             numTotal += 1;
         }
-        if (_jumps == JUMP_LIMIT || redPieces() + bluePieces() == totalOpen()) {
-            if (bluePieces() > redPieces()) {
-                _winner = BLUE;
-            } else if (redPieces() > bluePieces()) {
-                _winner = RED;
-            } else {
-                _winner = EMPTY;
-            }
-        } else if (!canMove(whoseMove()) && !canMove(whoseMove().opposite())) {
-            if (redPieces() > bluePieces()) {
-                _winner = RED;
-            } else if (bluePieces() > redPieces()) {
-                _winner = BLUE;
-            } else {
-                _winner = EMPTY;
-            }
-        } else if (redPieces() == 0) {
-            _winner = BLUE;
-        } else if (bluePieces() == 0) {
-            _winner = RED;
-        } else {
-            _winner = null;
-        }
+        _winner = outcome();
         announce();
         _whoseMove = opponent;
     }
 
+    /** Return the winner of the current position (EMPTY for a draw), or
+     *  null if the game is not over.  The game ends when JUMP_LIMIT
+     *  consecutive jumps have been made, when the board is full, or when
+     *  neither side can move, and the side with more pieces wins.  It
+     *  also ends when one side has no pieces left.  Since the board's
+     *  piece sets are kept up to date by every set and undo, this takes
+     *  a fixed number of mask operations, however full the board. */
+    private PieceColor outcome() {
+        long empty = pieces(EMPTY);
+        int red = Long.bitCount(_red), blue = Long.bitCount(_blue);
+        if (_jumps >= JUMP_LIMIT || empty == 0
+            || (!MoveGenerator.canMove(_red, empty)
+                && !MoveGenerator.canMove(_blue, empty))) {
+            return red > blue ? RED : blue > red ? BLUE : EMPTY;
+        } else if (red == 0) {
+            return BLUE;
+        } else if (blue == 0) {
+            return RED;
+        } else {
+            return null;
+        }
+    }
+
     /** Replacing the opponent's adjacent pieces after a MOVE to your COLOR. */
     private void replacePieces(Move move, PieceColor color) {
-        int moveIndex = move.toIndex();
-        for (int i = -1; i < 2; i++) {
-            for (int j = -1; j < 2; j++) {
-                int nbr = neighbor(moveIndex, i, j);
-                if (get(nbr) == color.opposite()) {
-                    set(nbr, color);
-                }
-            }
+        long flips = adjacent(bit(move.toIndex()))
+            & pieces(color.opposite());
+        for (; flips != 0; flips &= flips - 1) {
+            set(square(Long.numberOfTrailingZeros(flips)), color);
         }
     }
 
@@ -338,7 +431,6 @@ class Board {
     /** Update to indicate that the current player passes, assuming it
      *  is legal to do so. Passing is undoable. */
     void pass() {
-        assert !canMove(_whoseMove);
         if (canMove(_whoseMove)) {
             throw new GameException("Cannot pass, a move is possible");
         }
@@ -349,26 +441,15 @@ class Board {
 
     /** Undo the last move. */
     void undo() {
-        if (_undoSquares.isEmpty()) {
+        if (_undoSize == 0) {
             throw error("Not Undoable");
         }
-        Move prev = _allMoves.get(_allMoves.size() - 1);
-        while (_undoSquares.peek() != null && !_undoSquares.empty()) {
-            int index = _undoSquares.pop();
-            PieceColor color = _undoPieces.pop();
-            if (get(index) != color) {
-                incrPieces(color, 1);
-                incrPieces(get(index), -1);
-            }
-            unrecordedSet(index, color);
-        }
-        if (_undoSquares.peek() == null && _undoPieces.peek() == null) {
-            _undoSquares.pop();
-            _undoPieces.pop();
-        }
-        if (prev.isJump()) {
-            _jumps -= 1;
+        int entry;
+        while ((entry = _undo[--_undoSize]) >= 0) {
+            unrecordedSet(entry >> COLOR_BITS,
+                          COLORS[entry & ((1 << COLOR_BITS) - 1)]);
         }
+        _jumps = -entry - 1;
         _whoseMove = _whoseMove.opposite();
         _allMoves.remove(_allMoves.size() - 1);
         numTotal -= 1;
@@ -376,18 +457,22 @@ class Board {
         announce();
     }
 
-    /** Indicate beginning of a move in the undo stack. See the
-     * _undoSquares and _undoPieces instance variable comments for
-     * details on how the beginning of moves are marked. */
+    /** Record the start of a move in the undo journal. */
     private void startUndo() {
-        _undoSquares.push(null);
-        _undoPieces.push(null);
+        journal(-_jumps - 1);
     }
 
-    /** Add an undo action for changing SQ on current board. */
+    /** Record in the undo journal that square SQ is about to change. */
     private void addUndo(int sq) {
-        _undoSquares.push(sq);
-        _undoPieces.push(get(sq));
+        journal(sq << COLOR_BITS | get(sq).ordinal());
+    }
+
+    /** Append ENTRY to the undo journal, enlarging it as needed. */
+    private void journal(int entry) {
+        if (_undoSize == _undo.length) {
+            _undo = Arrays.copyOf(_undo, 2 * _undo.length);
+        }
+        _undo[_undoSize++] = entry;
     }
 
     /** Return true iff it is legal to place a block at C R. */
@@ -427,7 +512,7 @@ class Board {
         if (!canMove(RED) && !canMove(BLUE)) {
             _winner = EMPTY;
         }
-        _totalOpen = totalOpen();
+        _totalOpen = SQUARES - Long.bitCount(_blocks);
         announce();
     }
 
@@ -436,17 +521,46 @@ class Board {
         setBlock(cr.charAt(0), cr.charAt(1));
     }
 
-    /** Return total number of unblocked squares. */
-    int totalOpen() {
-        numBlocks = 0;
-        for (char i = 'a'; i <= 'g'; i++) {
-            for (char j = '1'; j <= '7'; j++) {
-                if (get(index(i, j)) == BLOCKED) {
-                    numBlocks++;
-                }
+    /** Clear me, and then set up the position described by CONTENTS, with
+     *  NEXT to move.  CONTENTS gives the squares row by row from a7-g7
+     *  down to a1-g1 as 'r' (red), 'b' (blue), 'X' (block), or '-'
+     *  (empty).  The position need not be reachable by legal moves. */
+    void setPosition(String contents, PieceColor next) {
+        if (contents.length() != SQUARES) {
+            throw error("position must have %d squares", SQUARES);
+        }
+        clear();
+        for (int i = 0; i < SQUARES; i += 1) {
+            PieceColor v;
+            switch (contents.charAt(i)) {
+            case 'r':
+                v = RED;
+                break;
+            case 'b':
+                v = BLUE;
+                break;
+            case 'X':
+                v = BLOCKED;
+                break;
+            case '-':
+                v = EMPTY;
+                break;
+            default:
+                throw error("bad square in position: '%c'",
+                            contents.charAt(i));
             }
+            unrecordedSet((char) ('a' + i % SIDE), (char) ('7' - i / SIDE),
+                          v);
         }
-        return SIDE * SIDE - numBlocks;
+        _whoseMove = next;
+        _totalOpen = SQUARES - Long.bitCount(_blocks);
+        _winner = outcome();
+        announce();
+    }
+
+    /** Return total number of unblocked squares. */
+    int totalOpen() {
+        return _totalOpen;
     }
 
     /** Return a list of all moves made since the last clear (or start of
@@ -468,7 +582,33 @@ class Board {
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(_board);
+        return (int) (_key ^ (_key >>> 32));
+    }
+
+    /** Return the Zobrist key component for having CONTENTS (which may
+     *  be null in a fresh board) at square SQ. */
+    private static long zobrist(int sq, PieceColor contents) {
+        if (contents == null || contents == EMPTY) {
+            return 0;
+        }
+        return ZOBRIST[bit(sq)][contents.ordinal() - BLOCKED.ordinal()];
+    }
+
+    /** Random keys for each combination of playable square (by bit number)
+     *  and non-empty contents (BLOCKED, RED, BLUE, in that order). */
+    private static final long[][] ZOBRIST = new long[SQUARES][3];
+
+    /** Key component indicating that blue is to move. */
+    private static final long BLUE_TO_MOVE;
+
+    static {
+        Random keys = new Random(0x61b_a7a_77L);
+        for (long[] sqKeys : ZOBRIST) {
+            for (int i = 0; i < sqKeys.length; i += 1) {
+                sqKeys[i] = keys.nextLong();
+            }
+        }
+        BLUE_TO_MOVE = keys.nextLong();
     }
 
     /** Return a text depiction of the board.  If LEGEND, supply row and
@@ -520,6 +660,10 @@ class Board {
     /** A notifier that does nothing. */
     private static final Consumer<Board> NOP = (s) -> { };
 
+    /** A board in the initial position, from which clear copies.  It
+     *  must be initialized after NOP and the Zobrist keys. */
+    private static final Board INITIAL = new Board();
+
     /** Use _notifier.accept(this) to announce changes to this board. */
     private Consumer<Board> _notifier;
 
@@ -549,33 +693,48 @@ class Board {
     /** Total number of unblocked squares. */
     private int _totalOpen;
 
-    /** Number of blue and red pieces, indexed by the ordinal positions of
-     *  enumerals BLUE and RED. */
-    private int[] _numPieces = new int[BLUE.ordinal() + 1];
+    /** Sets of squares (see Bitboard) holding red pieces, blue pieces,
+     *  and blocks, respectively.  Always consistent with _board. */
+    private long _red, _blue, _blocks;
+
+    /** Zobrist hash of the contents of the board, not counting the
+     *  player to move.  See key(). */
+    private long _key;
+
+    /** Accumulated features (see accumulated) of the red pieces and of
+     *  the blue pieces. */
+    private final int[][] _accumulators = new int[2][ACCUMULATORS];
 
     /** Set to winner when game ends (EMPTY if tie).  Otherwise is null. */
     private PieceColor _winner;
 
     /** List of all (non-undone) moves since the last clear or beginning of
      *  the game. */
-    private ArrayList<Move> _allMoves;
-
-    /* The undo stack. We keep a stack of squares that have changed and
-     * their previous contents.  Any given move may involve several such
-     * changes, so we mark the start of the changes for each move (including
-     * passes) with a null. */
-
-    /** Stack of linearized indices of squares that have been modified and
-     *  not undone. Nulls mark the beginnings of full moves. */
-    private Stack<Integer> _undoSquares;
-    /** Stack of pieces formally at corresponding squares in _UNDOSQUARES. */
-    private Stack<PieceColor> _undoPieces;
-
-    /** Number of Blocks. */
-    private int numBlocks;
-
-    /** Number of empty squares. */
-    private int numEmpty;
+    private final ArrayList<Move> _allMoves = new ArrayList<>();
+
+    /* The undo journal.  For each move not undone (including passes),
+     * it holds a marker, -1 - J, where J is the value of _jumps before
+     * the move, followed by an entry for each square the move changed,
+     * SQ << COLOR_BITS | C, where SQ is the square's linearized index and
+     * C is the ordinal of its previous contents.  Markers are negative
+     * and square entries are not, so undo pops square entries until it
+     * reaches a marker.  The journal is a plain int array, doubled in
+     * size when full, so that making and undoing moves allocates
+     * nothing. */
+
+    /** Initial size of the undo journal. */
+    private static final int INITIAL_UNDO_SIZE = 256;
+    /** Number of bits for the contents of a square in a journal
+     *  entry. */
+    private static final int COLOR_BITS = 2;
+    /** The PieceColors, by ordinal. */
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    /** The undo journal, as described above.  It is kept, with whatever
+     *  size it has grown to, when I am cleared. */
+    private int[] _undo = new int[INITIAL_UNDO_SIZE];
+    /** Number of entries in _undo. */
+    private int _undoSize;
 
     /** Number of total Jumps. */
     private int _jumps;
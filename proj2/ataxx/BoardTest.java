@@ -6,6 +6,16 @@ package ataxx;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
 import static ataxx.PieceColor.*;
 import static org.junit.Assert.*;
 
@@ -212,6 +222,10 @@ public class BoardTest {
         checkBoard(b, JUMPS1);
         b.makeMove('g', '6', 'f', '4');
         checkBoard(b, JUMPS2);
+        assertEquals("numJumps not 1", 1, b.numJumps());
+        b.makeMove('a', '7', 'a', '6');
+        b.undo();
+        assertEquals("undo did not restore numJumps", 1, b.numJumps());
     }
 
     @Test
@@ -336,6 +350,239 @@ public class BoardTest {
         assertEquals("wrong bluePieces", 12, b.bluePieces());
     }
 
+    @Test
+    public void testPieceMasks() {
+        Board b = new Board();
+        b.setBlock('c', '2');
+        makeMoves(b, UNDO2MOVES);
+        b.undo();
+        b.undo();
+        for (char c = 'a'; c <= 'g'; c += 1) {
+            for (char r = '1'; r <= '7'; r += 1) {
+                int sq = Board.index(c, r);
+                PieceColor color = b.get(sq);
+                assertTrue("mask disagrees with board at " + c + r,
+                           (b.pieces(color) & Bitboard.mask(sq)) != 0);
+            }
+        }
+        assertEquals("wrong numEmpty", Bitboard.SQUARES - 4
+                     - b.redPieces() - b.bluePieces(), b.numEmpty());
+        assertTrue("red can move", b.canMove(RED));
+        assertTrue("blue can move", b.canMove(BLUE));
+    }
+
+    /** Return true iff some move by WHO on B is legal, checking each
+     *  possible move separately. */
+    private static boolean hasLegalMove(Board b, PieceColor who) {
+        for (char c0 = 'a'; c0 <= 'g'; c0 += 1) {
+            for (char r0 = '1'; r0 <= '7'; r0 += 1) {
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        Move m = Move.move(c0, r0, (char) (c0 + dc),
+                                           (char) (r0 + dr));
+                        if (m != null && b.get(m.fromIndex()) == who
+                            && b.get(m.toIndex()) == EMPTY) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testReach() {
+        for (int b0 = 0; b0 < Bitboard.SQUARES; b0 += 1) {
+            long near, far;
+            near = far = 0;
+            for (int b1 = 0; b1 < Bitboard.SQUARES; b1 += 1) {
+                int dist =
+                    Math.max(Math.abs(b0 / Board.SIDE - b1 / Board.SIDE),
+                             Math.abs(b0 % Board.SIDE - b1 % Board.SIDE));
+                if (dist <= 1) {
+                    near |= 1L << b1;
+                }
+                if (dist <= 2) {
+                    far |= 1L << b1;
+                }
+            }
+            assertEquals("wrong dilation of bit " + b0,
+                         near, Bitboard.dilate(1L << b0));
+            assertEquals("wrong reach of bit " + b0,
+                         far, Bitboard.reach(1L << b0));
+        }
+    }
+
+    @Test
+    public void testCanMove() {
+        Random random = new Random(61);
+        for (int game = 0; game < 20; game += 1) {
+            Board b = new Board();
+            while (b.getWinner() == null) {
+                assertEquals("canMove(RED) wrong", hasLegalMove(b, RED),
+                             b.canMove(RED));
+                assertEquals("canMove(BLUE) wrong", hasLegalMove(b, BLUE),
+                             b.canMove(BLUE));
+                ArrayList<Move> moves = new ArrayList<>();
+                for (int code = 1; code < Move.NUM_MOVES; code += 1) {
+                    if (b.legalMove(Move.move(code))) {
+                        moves.add(Move.move(code));
+                    }
+                }
+                checkGenerator(b, moves);
+                if (moves.isEmpty()) {
+                    b.makeMove(Move.pass());
+                } else {
+                    b.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAccumulators() {
+        Random random = new Random(613);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 20; game += 1) {
+            Board b = new Board();
+            b.setBlock("c3");
+            checkAccumulators(b);
+            int made;
+            for (made = 0; b.getWinner() == null; made += 1) {
+                int n = MoveGenerator.generate(b, moves, false);
+                b.makeMove(Move.move(moves[random.nextInt(n)]));
+                checkAccumulators(b);
+            }
+            checkAccumulators(new Board(b));
+            for (; made > 0; made -= 1) {
+                b.undo();
+                checkAccumulators(b);
+            }
+        }
+    }
+
+    /** Check B's accumulated features against a count of its squares. */
+    private static void checkAccumulators(Board b) {
+        for (PieceColor who : new PieceColor[] { RED, BLUE }) {
+            int[] expected = new int[Board.ACCUMULATORS];
+            for (int sq = 0; sq < Bitboard.SQUARES; sq += 1) {
+                if ((b.pieces(who) & (1L << sq)) != 0) {
+                    expected[Bitboard.ring(sq)] += 1;
+                    expected[Board.LIBERTIES] += Long.bitCount(
+                        Bitboard.adjacent(sq) & b.pieces(EMPTY));
+                }
+            }
+            for (int k = 0; k < Board.ACCUMULATORS; k += 1) {
+                assertEquals("wrong accumulated feature " + k + " for "
+                             + who, expected[k], b.accumulated(who, k));
+            }
+        }
+    }
+
+    /** Check that MoveGenerator finds exactly the moves in LEGAL on B, or
+     *  just a pass if LEGAL is empty, and that when generating distinct
+     *  clone moves, it produces one for each clone destination. */
+    private static void checkGenerator(Board b, ArrayList<Move> legal) {
+        int[] codes = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generate(b, codes, false);
+        if (legal.isEmpty()) {
+            assertEquals("should only pass", 1, n);
+            assertEquals("should only pass", Move.pass().code(), codes[0]);
+            return;
+        }
+        assertEquals("wrong number of moves generated", legal.size(), n);
+        HashSet<Integer> cloneTargets = new HashSet<>();
+        int jumps = 0;
+        for (int i = 0; i < n; i += 1) {
+            Move m = Move.move(codes[i]);
+            assertTrue("generated illegal move " + m, legal.contains(m));
+            if (m.isExtend()) {
+                cloneTargets.add(m.toIndex());
+            } else {
+                jumps += 1;
+            }
+        }
+        n = MoveGenerator.generate(b, codes, true);
+        assertEquals("wrong number of distinct moves",
+                     cloneTargets.size() + jumps, n);
+        for (int i = 0; i < n; i += 1) {
+            assertTrue("generated illegal move",
+                       legal.contains(Move.move(codes[i])));
+        }
+    }
+
+    @Test
+    public void testKeys() {
+        Board b0 = new Board();
+        Board b1 = new Board();
+        long initial = b0.key();
+        makeMoves(b0, new String[] { "a7-a6", "a1-b1", "g1-f1", "g7-f6" });
+        makeMoves(b1, new String[] { "g1-f1", "g7-f6", "a7-a6", "a1-b1" });
+        assertEquals("transposed positions differ", b0.key(), b1.key());
+        assertEquals("equal boards hash differently",
+                     b0.hashCode(), b1.hashCode());
+        b0.makeMove('a', '6', 'a', '5');
+        assertNotEquals("keys ignore move", b0.key(), b1.key());
+        for (int i = 0; i < 5; i += 1) {
+            b0.undo();
+        }
+        assertEquals("undo does not restore key", initial, b0.key());
+    }
+
+    @Test
+    public void testEvaluator() throws IOException {
+        WeightedEvaluator eval = WeightedEvaluator.read(
+            new StringReader("# test\nmaterial 100\n\nholes -7\n"));
+        assertArrayEquals("weights misread",
+                          new int[] { 100, 0, 0, -7, 0, 0, 0, 0 },
+                          eval.weights());
+        StringWriter out = new StringWriter();
+        eval.write(new PrintWriter(out));
+        assertArrayEquals("weights not written", eval.weights(),
+                          WeightedEvaluator.read(new StringReader(
+                              out.toString())).weights());
+        Board b = new Board();
+        int[] values = new int[WeightedEvaluator.FEATURES.length];
+        WeightedEvaluator.features(b, values);
+        assertArrayEquals("initial position unbalanced",
+                          new int[] { 0, 0, 0, 0, 0, 0, 0, 0 }, values);
+        makeMoves(b, new String[] { "a7-b6", "a1-b1", "g1-f2", "b1-c2",
+                                    "b6-b5" });
+        WeightedEvaluator.features(b, values);
+        assertEquals("wrong material",
+                     b.numPieces(BLUE) - b.numPieces(RED), values[0]);
+        int[] weights = { 3, 5, 7, 11, 13, 17, 19, 23 };
+        int sum = 0;
+        for (int f = 0; f < weights.length; f += 1) {
+            sum += weights[f] * values[f];
+        }
+        assertEquals("evaluation disagrees with features", sum,
+                     new WeightedEvaluator(weights).evaluate(b));
+    }
+
+    @Test
+    public void testBook() throws IOException {
+        Board b0 = new Board();
+        makeMoves(b0, new String[] { "a7-b6", "a1-c3" });
+        OpeningBook book = new OpeningBook();
+        book.put(b0, Move.move("g1-f2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        book.write(out);
+        book = OpeningBook.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals("wrong book move", Move.move("g1-f2"), book.lookup(b0));
+        for (int sym : new int[] { 3, 4, 7 }) {
+            Board b1 = new Board();
+            b1.makeMove(OpeningBook.reflect(sym, Move.move("a7-b6")));
+            assertNull("unexpected book move", book.lookup(b1));
+            b1.makeMove(OpeningBook.reflect(sym, Move.move("a1-c3")));
+            assertEquals("reflected key differs", b0.key(sym), b1.key());
+            assertEquals("wrong reflected book move",
+                         OpeningBook.reflect(sym, Move.move("g1-f2")),
+                         book.lookup(b1));
+        }
+    }
+
     private static final String[] GAME1 = {
         "a7-b7", "a1-a2",
         "a7-a6", "a2-a3",
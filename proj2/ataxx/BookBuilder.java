@@ -0,0 +1,97 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+
+import static ataxx.PieceColor.*;
+
+/** Builds an opening book (see OpeningBook) by searching the positions
+ *  near the start of the game deeply.  Run with
+ *      java ataxx.BookBuilder DEPTH PLIES FILE
+ *  to search to depth DEPTH every position reachable in at most PLIES
+ *  moves from the initial position, either without blocks or with the
+ *  blocks from a single call to Board.setBlock, and write the result to
+ *  FILE.
+ *  @author Brian Chiang
+ */
+public class BookBuilder {
+
+    /** Build a book as described in the class comment, where ARGS
+     *  contains DEPTH, PLIES, and FILE. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: java ataxx.BookBuilder DEPTH PLIES "
+                               + "FILE");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        int plies = Integer.parseInt(args[1]);
+        long start = System.currentTimeMillis();
+        OpeningBook book = build(depth, plies);
+        try (OutputStream out =
+             new BufferedOutputStream(new FileOutputStream(args[2]))) {
+            book.write(out);
+        }
+        System.out.printf("%d positions in %.1f sec%n", book.size(),
+                          (System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    /** Return a book containing the best moves, found by searching to
+     *  DEPTH, for the positions within PLIES moves of the start of the
+     *  game, as described in the class comment. */
+    static OpeningBook build(int depth, int plies) {
+        OpeningBook book = new OpeningBook();
+        AI ai = new AI(null, RED, 0);
+        ai.setTimeLimit(0);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        ArrayDeque<Board> queue = new ArrayDeque<>();
+        ArrayDeque<Integer> distances = new ArrayDeque<>();
+        for (Board root : roots()) {
+            queue.add(root);
+            distances.add(0);
+        }
+        while (!queue.isEmpty()) {
+            Board board = queue.remove();
+            int distance = distances.remove();
+            if (board.getWinner() != null || book.contains(board)) {
+                continue;
+            }
+            book.put(board, ai.findMove(board, depth));
+            if (distance < plies) {
+                int n = MoveGenerator.generate(board, moves, true);
+                for (int i = 0; i < n; i += 1) {
+                    Board next = new Board(board);
+                    next.makeMove(Move.move(moves[i]));
+                    queue.add(next);
+                    distances.add(distance + 1);
+                }
+            }
+        }
+        return book;
+    }
+
+    /** Return the initial positions: the one without blocks, followed by
+     *  those with the blocks placed by one call to setBlock. */
+    private static ArrayDeque<Board> roots() {
+        ArrayDeque<Board> result = new ArrayDeque<>();
+        result.add(new Board());
+        for (char c = 'a'; c <= 'd'; c += 1) {
+            for (char r = '1'; r <= '4'; r += 1) {
+                Board board = new Board();
+                if (board.legalBlock(c, r)) {
+                    board.setBlock(c, r);
+                    result.add(board);
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -4,6 +4,7 @@
 
 package ataxx;
 
+import java.util.HashMap;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -27,7 +28,7 @@ class Command {
      *  programmer writes. */
     enum Type {
         COMMENT("#.*|$"),
-        AUTO("auto\\s+(red|blue)"),
+        AUTO("auto\\s+(red|blue)(?:\\s+(ai|mcts))?"),
         BLOCK("block\\s+([a-g][1-7])"),
         MANUAL("manual\\s+(red|blue)"),
         SEED("seed\\s+(\\d+)"),
@@ -47,7 +48,8 @@ class Command {
         /** PATTERN is a regular expression string giving the syntax of
          *  a command of the given type.  It matches the entire command,
          *  assuming no leading or trailing whitespace.  The groups in
-         *  the pattern capture the operands (if any). */
+         *  the pattern capture the operands (if any).  Trailing optional
+         *  operands that are absent are omitted. */
         Type(String pattern) {
             _pattern = Pattern.compile(pattern + "$");
         }
@@ -79,8 +81,144 @@ class Command {
         return _operands;
     }
 
-    /** Parse COMMAND, returning the command and its operands. */
+    /** Parse COMMAND, returning the command and its operands.  This
+     *  recognizes each command with a single scan, dispatching on its
+     *  first word rather than trying each Type's pattern in turn, but
+     *  accepts exactly the syntax those patterns describe, and gives
+     *  the same results as parseWithPatterns. */
     static Command parseCommand(String command) {
+        if (command == null) {
+            return new Command(Type.EOF);
+        }
+        command = canonicalizeCommand(command);
+        int len = command.length();
+        if (len == 0 || command.equals("#")) {
+            return new Command(Type.COMMENT);
+        } else if (command.equals("-")
+                   || (len == 5 && isSquare(command, 0)
+                       && command.charAt(2) == '-' && isSquare(command, 3))) {
+            return new Command(Type.PIECEMOVE, command);
+        }
+        int end;
+        for (end = 0; end < len && !isSpace(command.charAt(end)); end += 1) {
+            /* Find the end of the first word. */
+        }
+        String word = command.substring(0, end);
+        Type type = KEYWORDS.get(word);
+        if (type == null) {
+            return new Command(Type.ERROR);
+        }
+        String[] operands = null;
+        switch (type) {
+        case AUTO:
+            operands = operands(command, end, COLORS, KINDS);
+            break;
+        case MANUAL:
+            operands = operands(command, end, COLORS);
+            break;
+        case BLOCK: {
+            int start = skipSpace(command, end);
+            if (start > end && start == len - 2
+                && isSquare(command, start)) {
+                operands = new String[] { command.substring(start) };
+            }
+            break;
+        }
+        case SEED: {
+            int start = skipSpace(command, end), last;
+            for (last = start; last < len && isDigit(command.charAt(last));
+                 last += 1) {
+                /* Find the end of the number. */
+            }
+            if (start > end && last > start && last == len) {
+                operands = new String[] { command.substring(start) };
+            }
+            break;
+        }
+        default:
+            if (end == len) {
+                operands = new String[0];
+            }
+            break;
+        }
+        return operands == null ? new Command(Type.ERROR)
+            : new Command(type, operands);
+    }
+
+    /** Return the operands of COMMAND following its first word, which
+     *  ends at END: one of the words in FIRST, optionally followed by
+     *  one of those in SECOND, if given, each preceded by whitespace and
+     *  with nothing after them, or null if the operands are not of this
+     *  form. */
+    private static String[] operands(String command, int end,
+                                     String[] first, String... second) {
+        int start = skipSpace(command, end);
+        String one = start > end ? wordAt(command, start, first) : null;
+        if (one == null) {
+            return null;
+        }
+        int next = start + one.length();
+        if (next == command.length()) {
+            return new String[] { one };
+        }
+        int start2 = skipSpace(command, next);
+        String two = start2 > next ? wordAt(command, start2, second) : null;
+        if (two == null || start2 + two.length() != command.length()) {
+            return null;
+        }
+        return new String[] { one, two };
+    }
+
+    /** Return the member of WORDS that occurs in COMMAND at START followed
+     *  by whitespace or the end, or null if there is none. */
+    private static String wordAt(String command, int start, String[] words) {
+        for (String word : words) {
+            int next = start + word.length();
+            if (command.startsWith(word, start)
+                && (next == command.length()
+                    || isSpace(command.charAt(next)))) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    /** Return the index of the first character of COMMAND at or after
+     *  START that is not whitespace. */
+    private static int skipSpace(String command, int start) {
+        while (start < command.length() && isSpace(command.charAt(start))) {
+            start += 1;
+        }
+        return start;
+    }
+
+    /** Return true iff C is whitespace, as matched by \\s in a
+     *  Pattern. */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b'
+            || c == '\f' || c == '\r';
+    }
+
+    /** Return true iff C is a decimal digit, as matched by \\d in a
+     *  Pattern. */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Return true iff COMMAND has the name of a square, such as "c3",
+     *  at index K. */
+    private static boolean isSquare(String command, int k) {
+        if (k + 2 > command.length()) {
+            return false;
+        }
+        char c = command.charAt(k), r = command.charAt(k + 1);
+        return c >= 'a' && c <= 'g' && r >= '1' && r <= '7';
+    }
+
+    /** Parse COMMAND as parseCommand does, but by trying the patterns of
+     *  the Types in order.  This is the definition of the syntax, against
+     *  which parseCommand is checked. */
+    static Command parseWithPatterns(String command) {
         if (command == null) {
             return new Command(Type.EOF);
         }
@@ -88,7 +226,11 @@ class Command {
         for (Type type : Type.values()) {
             Matcher mat = type._pattern.matcher(command);
             if (mat.matches()) {
-                String[] operands = new String [mat.groupCount()];
+                int n = mat.groupCount();
+                while (n > 0 && mat.group(n) == null) {
+                    n -= 1;
+                }
+                String[] operands = new String [n];
                 for (int i = 1; i <= operands.length; i += 1) {
                     operands[i - 1] = mat.group(i);
                 }
@@ -102,7 +244,8 @@ class Command {
      *  substituted for the command name. COMMAND may start with any
      *  prefix of a valid command name, as long as that name is unique.
      *  If the name is not unique or no command name matches,
-     *  returns COMMAND. */
+     *  returns COMMAND.  The names that prefixes stand for are looked up
+     *  in ABBREVIATIONS. */
     private static String canonicalizeCommand(String command) {
         command = command.trim();
 
@@ -116,28 +259,61 @@ class Command {
         int prefixLen = Math.max(command.indexOf(" "), command.length());
         String prefix = command.substring(0, prefixLen);
 
-        String fullName;
-        fullName = null;
-        for (String name : COMMAND_NAMES) {
-            if (name.equals(prefix)) {
-                fullName = prefix;
-                break;
-            }
-            if (name.startsWith(prefix)) {
-                if (fullName != null) {
-                    throw error("%s is not a unique prefix abbreviation",
-                                prefix);
-                }
-                fullName = name;
-            }
-        }
-        if (fullName != null) {
+        String fullName = ABBREVIATIONS.get(prefix);
+        if (AMBIGUOUS.equals(fullName)) {
+            throw error("%s is not a unique prefix abbreviation", prefix);
+        } else if (fullName != null) {
             return fullName + command.substring(prefixLen);
         } else {
             return command;
         }
     }
 
+    /** Return the map from each prefix of the names in COMMAND_NAMES to
+     *  the name it abbreviates: the name itself if it is one, the only
+     *  name it starts, or AMBIGUOUS if it starts several. */
+    private static HashMap<String, String> abbreviations() {
+        HashMap<String, String> result = new HashMap<>();
+        for (String name : COMMAND_NAMES) {
+            for (int k = 1; k <= name.length(); k += 1) {
+                String prefix = name.substring(0, k);
+                String old = result.get(prefix);
+                result.put(prefix, old == null || old.equals(name) ? name
+                           : AMBIGUOUS);
+            }
+        }
+        for (String name : COMMAND_NAMES) {
+            result.put(name, name);
+        }
+        return result;
+    }
+
+    /** Marks an ambiguous abbreviation in ABBREVIATIONS. */
+    private static final String AMBIGUOUS = "";
+
+    /** The full command names that prefixes of them stand for. */
+    private static final HashMap<String, String> ABBREVIATIONS =
+        abbreviations();
+
+    /** The Types of the commands that start with a keyword, by keyword. */
+    private static final HashMap<String, Type> KEYWORDS = new HashMap<>();
+
+    static {
+        for (Type type : new Type[] {
+                Type.AUTO, Type.BLOCK, Type.MANUAL, Type.SEED, Type.START,
+                Type.NEW, Type.DUMP, Type.HELP, Type.BOARD, Type.VERBOSE,
+                Type.QUIET, Type.UNDO }) {
+            KEYWORDS.put(type.toString().toLowerCase(), type);
+        }
+        KEYWORDS.put("q", Type.QUIT);
+        KEYWORDS.put("quit", Type.QUIT);
+    }
+
+    /** Color operands. */
+    private static final String[] COLORS = { "red", "blue" };
+    /** Kinds of automated player. */
+    private static final String[] KINDS = { "ai", "mcts" };
+
     /** The command name. */
     private final Type _type;
     /** Command arguments. */
@@ -7,6 +7,10 @@ package ataxx;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+
 import ataxx.Command.Type;
 import static ataxx.Command.Type.*;
 
@@ -33,9 +37,12 @@ public class CommandTest {
     @Test public void testAUTO() {
         check("auto red", AUTO, "red");
         check("auto blue", AUTO, "blue");
+        check("auto red mcts", AUTO, "red", "mcts");
+        check("auto blue ai", AUTO, "blue", "ai");
         checkError("auto green");
         checkError("auto");
         checkError("auto red foo");
+        checkError("auto red mcts foo");
     }
 
     @Test public void testBLOCK() {
@@ -80,4 +87,40 @@ public class CommandTest {
         checkError("a7-a8");
     }
 
+    /** Return the result of parsing COMMAND with PARSER, as a string
+     *  giving the type and operands, or the message of the error. */
+    String parsed(String command, Function<String, Command> parser) {
+        try {
+            Command c = parser.apply(command);
+            return c.commandType() + " "
+                + Arrays.toString(c.operands());
+        } catch (GameException excp) {
+            return excp.getMessage();
+        }
+    }
+
+    @Test public void testParserAgreement() {
+        String[] pieces = {
+            "auto", "block", "board", "dump", "help", "manual", "new", "q",
+            "quiet", "quit", "seed", "undo", "verbose", "start", "qu", "b",
+            "a", "red", "blue", "ai", "mcts", "c3", "h9", "a7-b7", "g1-e3",
+            "-", "#", "12", "x", "AUTO", "Red", " ", "  ", "\t", "-a1",
+            "auto red", "auto blue mcts", "manual red", "block c3",
+            "seed 42",
+        };
+        Random random = new Random(25);
+        for (int i = 0; i < 200000; i += 1) {
+            StringBuilder command = new StringBuilder();
+            for (int k = random.nextInt(5); k >= 0; k -= 1) {
+                command.append(pieces[random.nextInt(pieces.length)]);
+                if (random.nextInt(3) > 0) {
+                    command.append(" ");
+                }
+            }
+            String cmnd = command.toString();
+            assertEquals(cmnd, parsed(cmnd, Command::parseWithPatterns),
+                         parsed(cmnd, Command::parseCommand));
+        }
+    }
+
 }
@@ -0,0 +1,402 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+import static ataxx.Bitboard.*;
+import static ataxx.MoveGenerator.canMove;
+import static ataxx.PieceColor.*;
+
+/** An exact solver for positions with few empty squares.  Rather than
+ *  estimate values, it searches every line to the end of the game, where
+ *  the value of a position to the player to move is the final margin:
+ *  that player's pieces minus the opponent's.  A solution first proves
+ *  the outcome (win, loss, or draw) with a search whose window is just
+ *  around 0, and then, time permitting, the exact margin.
+ *
+ *  The search works directly on bitboards (see Bitboard) for the two
+ *  players' pieces, making each move by computing the resulting
+ *  bitboards rather than by modifying a Board, so that nothing need be
+ *  undone.
+ *
+ *  Because passes reset the count of consecutive jumps, a game in which
+ *  one player cannot move need never end.  Lines that repeat a position
+ *  (which must then be repeating a cycle of jumps and passes) or that are
+ *  still going after MAX_PLY moves are therefore decided by the piece
+ *  count at that point, as in Tournament.  Such values depend on the
+ *  line searched rather than just the position, and so are marked as
+ *  such in the hash table and, if they reach the root, not taken as
+ *  proofs.
+ *
+ *  The solver keeps its own hash table of the positions it has searched,
+ *  since its entries hold margins rather than estimates and are keyed by
+ *  the number of consecutive jumps as well as the position, on which the
+ *  end of the game depends.
+ *  @author Brian Chiang
+ */
+class EndgameSolver {
+
+    /** Default largest number of empty squares for which an AI tries the
+     *  solver.  Since jumps and passes can go on indefinitely, positions
+     *  with more empty squares often cannot be solved at all. */
+    static final int DEFAULT_EMPTIES = 1;
+
+    /** Longest line searched. */
+    static final int MAX_PLY = 200;
+
+    /** Number of positions visited between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 1024;
+    /** Number of entries in my hash table (a power of 2). */
+    private static final int TABLE_SIZE = 1 << 18;
+    /** A magnitude greater than any margin. */
+    private static final int INFTY = SQUARES + 1;
+
+    /* A move in the solver is the bit numbers of its from and to squares,
+     * packed as FROM << SQUARE_BITS | TO, or PASS for a pass.  For an
+     * extending move, FROM is the lowest-numbered adjacent piece. */
+
+    /** Number of bits in a square's bit number. */
+    private static final int SQUARE_BITS = 6;
+    /** Mask selecting a square from a packed move. */
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    /** Number of bits in a packed move. */
+    private static final int MOVE_BITS = 2 * SQUARE_BITS;
+    /** The packed pass. */
+    private static final int PASS = (1 << MOVE_BITS) - 1;
+    /** Priority (see generate) of the hash-table move, which exceeds that
+     *  of any other move. */
+    private static final int HASH_PRIORITY = 2 * 8 + 2;
+
+    /* Bound types of hash-table entries, as in TranspositionTable. */
+
+    /** Bound type: the score is exact. */
+    private static final int EXACT = 0;
+    /** Bound type: the score is a lower bound. */
+    private static final int LOWER = 1;
+    /** Bound type: the score is an upper bound. */
+    private static final int UPPER = 2;
+
+    /** A new solver. */
+    EndgameSolver() {
+        _moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    }
+
+    /** Try to solve BOARD, on which the game is not over, within MSEC
+     *  milliseconds.  Return true iff at least the outcome was proven, in
+     *  which case move() is a move that achieves it, outcome() is the
+     *  outcome, and if exact(), margin() is the margin.  Values decided
+     *  by repetition or by MAX_PLY prove nothing.  Does not modify
+     *  BOARD. */
+    boolean solve(Board board, long msec) {
+        return solve(board, msec, Long.MAX_VALUE);
+    }
+
+    /** Try to solve BOARD as for solve(BOARD, MSEC), but visiting at most
+     *  about POSITIONS positions, and with no limit on time unless MSEC
+     *  is positive.  With no time limit, the result depends only on
+     *  BOARD and the positions solved before, and not on the speed of
+     *  the machine. */
+    boolean solve(Board board, long msec, long positions) {
+        PieceColor me = board.whoseMove();
+        long mine = board.pieces(me), theirs = board.pieces(me.opposite());
+        int jumps = board.numJumps();
+        _blocks = board.pieces(BLOCKED);
+        _deadline = msec > 0 ? System.currentTimeMillis() + msec
+            : Long.MAX_VALUE;
+        _nodeLimit = _nodes + Math.min(positions, Long.MAX_VALUE - _nodes);
+        _stopped = false;
+        _exact = false;
+        int value = search(mine, theirs, jumps, 0, -1, 1);
+        if (_stopped || _pathDependent) {
+            return false;
+        }
+        _outcome = Integer.signum(value);
+        _move = _rootMove;
+        value = search(mine, theirs, jumps, 0, -INFTY, INFTY);
+        if (!_stopped && !_pathDependent) {
+            _margin = value;
+            _move = _rootMove;
+            _exact = true;
+        }
+        return true;
+    }
+
+    /** Forget the positions solved so far. */
+    void clear() {
+        Arrays.fill(_data, 0);
+    }
+
+    /** Return the best move found by the last successful solve. */
+    Move move() {
+        if (_move == PASS) {
+            return Move.pass();
+        }
+        return Move.move(MoveGenerator.code(_move >>> SQUARE_BITS,
+                                            _move & SQUARE_MASK));
+    }
+
+    /** Return 1, 0, or -1 as the last position successfully solved is won,
+     *  drawn, or lost for the player to move. */
+    int outcome() {
+        return _outcome;
+    }
+
+    /** Return true iff the last successful solve proved the margin as well
+     *  as the outcome. */
+    boolean exact() {
+        return _exact;
+    }
+
+    /** Return the final margin for the player to move in the last position
+     *  solved exactly, assuming best play. */
+    int margin() {
+        return _margin;
+    }
+
+    /** Return the total number of positions visited by my searches. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the margin for the player to move, assuming best play, of
+     *  the position PLY moves from the root of the search in which that
+     *  player's pieces are MINE, the opponent's are THEIRS, and the last
+     *  JUMPS moves were jumps.  Record the best move in _rootMove iff PLY
+     *  is 0.  As for AI.search, the result is exact if strictly between
+     *  ALPHA and BETA, and otherwise a bound.  Sets _pathDependent iff
+     *  the result depends on a line cut off by repetition or MAX_PLY,
+     *  directly or through a hash-table entry marked as so depending.  A
+     *  cutoff depends only on the move that caused it, since the other
+     *  moves could only raise the value; otherwise, the result depends
+     *  on every move.
+     *  Returns 0 promptly, setting _stopped, if the search runs out of
+     *  time or positions. */
+    private int search(long mine, long theirs, int jumps, int ply,
+                       int alpha, int beta) {
+        _nodes += 1;
+        if (_nodes >= _nodeLimit
+            || _nodes % CLOCK_INTERVAL == 0
+               && System.currentTimeMillis() >= _deadline) {
+            _stopped = true;
+        }
+        _pathDependent = false;
+        if (_stopped) {
+            return 0;
+        }
+        long empty = ALL & ~(mine | theirs | _blocks);
+        boolean myMoves = canMove(mine, empty);
+        long key = key(mine, theirs, jumps);
+        if (jumps >= Board.JUMP_LIMIT || empty == 0
+            || (!myMoves && !canMove(theirs, empty))
+            || mine == 0 || theirs == 0) {
+            return Long.bitCount(mine) - Long.bitCount(theirs);
+        } else if (ply == MAX_PLY || repeated(key, ply)) {
+            _pathDependent = true;
+            return Long.bitCount(mine) - Long.bitCount(theirs);
+        }
+        _path[ply] = key;
+        int slot = (int) (key ^ (key >>> 32)) & (TABLE_SIZE - 1);
+        int entry = _keys[slot] == key ? _data[slot] : 0;
+        int hashMove = -1;
+        if (entry != 0) {
+            hashMove = (entry >>> ENTRY_MOVE_SHIFT) & PASS;
+            int score = (byte) entry;
+            _pathDependent = (entry & ENTRY_DEPENDENT) != 0;
+            switch ((entry >>> ENTRY_BOUND_SHIFT) & 3) {
+            case EXACT:
+                if (ply > 0) {
+                    return score;
+                }
+                break;
+            case LOWER:
+                if (ply > 0 && score >= beta) {
+                    return score;
+                }
+                break;
+            default:
+                if (ply > 0 && score <= alpha) {
+                    return score;
+                }
+                break;
+            }
+        }
+        int alpha0 = alpha;
+        boolean pathDependent = false;
+        int bestScore = -INFTY;
+        int bestMove = PASS;
+        int[] moves = _moves[ply];
+        int numMoves =
+            myMoves ? generate(mine, theirs, empty, moves, hashMove) : 0;
+        if (numMoves == 0) {
+            moves[numMoves++] = PASS;
+        }
+        for (int i = 0; i < numMoves; i += 1) {
+            int move = moves[i];
+            long mine1 = mine, theirs1 = theirs;
+            int jumps1 = 0;
+            if (move != PASS) {
+                int from = move >>> SQUARE_BITS, to = move & SQUARE_MASK;
+                long captured = adjacent(to) & theirs;
+                mine1 |= 1L << to | captured;
+                theirs1 &= ~captured;
+                if ((jumps(from) & 1L << to) != 0) {
+                    mine1 &= ~(1L << from);
+                    jumps1 = jumps + 1;
+                }
+            }
+            int score;
+            if (i == 0) {
+                score = -search(theirs1, mine1, jumps1, ply + 1,
+                                -beta, -alpha);
+            } else {
+                score = -search(theirs1, mine1, jumps1, ply + 1,
+                                -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(theirs1, mine1, jumps1, ply + 1,
+                                    -beta, -alpha);
+                }
+            }
+            if (_stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    _rootMove = move;
+                }
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) {
+                    pathDependent = _pathDependent;
+                    break;
+                }
+            }
+            pathDependent |= _pathDependent;
+        }
+        _pathDependent = pathDependent;
+        int bound = bestScore <= alpha0 ? UPPER
+            : bestScore >= beta ? LOWER : EXACT;
+        _keys[slot] = key;
+        _data[slot] = bestMove << ENTRY_MOVE_SHIFT
+            | bound << ENTRY_BOUND_SHIFT | ENTRY_PRESENT
+            | (pathDependent ? ENTRY_DEPENDENT : 0) | bestScore & 0xff;
+        return bestScore;
+    }
+
+    /** Fill MOVES with the packed moves of the player whose pieces are MINE
+     *  when the opponent's are THEIRS and the empty squares are EMPTY, in
+     *  the order in which to search them, and return their number.  There
+     *  is one extending move to each square that can be reached by one.
+     *  HASHMOVE (if it is among them) comes first, and then the others by
+     *  decreasing gain in margin: twice the number of pieces captured,
+     *  plus one for an extending move. */
+    private static int generate(long mine, long theirs, long empty,
+                                int[] moves, int hashMove) {
+        int n;
+        n = 0;
+        for (long to = dilate(mine) & empty; to != 0; to &= to - 1) {
+            int t = Long.numberOfTrailingZeros(to);
+            int f = Long.numberOfTrailingZeros(adjacent(t) & mine);
+            int priority = 2 * Long.bitCount(adjacent(t) & theirs) + 1;
+            moves[n++] = pack(f, t, priority, hashMove);
+        }
+        for (long from = mine; from != 0; from &= from - 1) {
+            int f = Long.numberOfTrailingZeros(from);
+            for (long to = jumps(f) & empty; to != 0; to &= to - 1) {
+                int t = Long.numberOfTrailingZeros(to);
+                int priority = 2 * Long.bitCount(adjacent(t) & theirs);
+                moves[n++] = pack(f, t, priority, hashMove);
+            }
+        }
+        Arrays.sort(moves, 0, n);
+        for (int i = 0; i < n; i += 1) {
+            moves[i] &= (1 << MOVE_BITS) - 1;
+        }
+        return n;
+    }
+
+    /** Return the move from square F to square T, packed with its
+     *  PRIORITY, or HASH_PRIORITY if it is HASHMOVE, so that moves sort
+     *  into decreasing order of priority. */
+    private static int pack(int f, int t, int priority, int hashMove) {
+        int move = f << SQUARE_BITS | t;
+        if (move == hashMove) {
+            priority = HASH_PRIORITY;
+        }
+        return (HASH_PRIORITY - priority) << MOVE_BITS | move;
+    }
+
+    /** Return a hash key for the position with MINE, THEIRS, my _blocks,
+     *  and JUMPS consecutive jumps. */
+    private long key(long mine, long theirs, int jumps) {
+        long h = mine * 0x9E3779B97F4A7C15L
+            ^ Long.rotateLeft(theirs * 0xC2B2AE3D27D4EB4FL, 31)
+            ^ Long.rotateLeft(_blocks * 0x165667B19E3779F9L, 17)
+            ^ jumps;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Return true iff the position with KEY at PLY has occurred before
+     *  in the line being searched. */
+    private boolean repeated(long key, int ply) {
+        for (int p = ply - 2; p >= 0; p -= 2) {
+            if (_path[p] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Layout of a hash-table entry: bits 0-7 hold the score, 8-9 the
+     * bound type, 10 is always set, so that no entry is 0, 11-22 hold
+     * the packed best move, and 23 is set iff the score depends on the
+     * line by which the position was reached (see search). */
+
+    /** Position of the bound type in an entry. */
+    private static final int ENTRY_BOUND_SHIFT = 8;
+    /** Bit present in every entry. */
+    private static final int ENTRY_PRESENT = 1 << 10;
+    /** Position of the move in an entry. */
+    private static final int ENTRY_MOVE_SHIFT = 11;
+    /** Bit set in entries whose scores depend on the line searched. */
+    private static final int ENTRY_DEPENDENT = 1 << 23;
+
+    /** Keys of the positions in my hash table. */
+    private final long[] _keys = new long[TABLE_SIZE];
+    /** Entries of my hash table, as described above, or 0 if empty. */
+    private final int[] _data = new int[TABLE_SIZE];
+    /** Buffers for the moves searched at each ply. */
+    private final int[][] _moves;
+    /** Keys of the positions in the line being searched, by ply. */
+    private final long[] _path = new long[MAX_PLY];
+    /** The blocked squares of the position being solved. */
+    private long _blocks;
+    /** Time (as from System.currentTimeMillis) at which the current solve
+     *  must stop. */
+    private long _deadline;
+    /** Value of _nodes at which the current solve must stop. */
+    private long _nodeLimit;
+    /** True iff the current solve has run out of time or positions. */
+    private boolean _stopped;
+    /** True iff the value last returned by search depends on a line cut
+     *  off by repetition or MAX_PLY. */
+    private boolean _pathDependent;
+    /** Best move found at the root by the last search. */
+    private int _rootMove;
+    /** Best move found by the last successful solve. */
+    private int _move;
+    /** Outcome of the last successful solve. */
+    private int _outcome;
+    /** Margin found by the last exact solve. */
+    private int _margin;
+    /** True iff the last successful solve was exact. */
+    private boolean _exact;
+    /** Number of positions visited. */
+    private long _nodes;
+}
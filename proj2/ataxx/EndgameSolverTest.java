@@ -0,0 +1,85 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of the EndgameSolver class.
+ *  @author Brian Chiang
+ */
+public class EndgameSolverTest {
+
+    @Test
+    public void testEndgame() {
+        Random random = new Random(5);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Board b = new Board();
+        while (b.numEmpty() > 1 || b.getWinner() != null
+               || !b.canMove(b.whoseMove())) {
+            if (b.getWinner() != null) {
+                b = new Board();
+            }
+            int n = MoveGenerator.generate(b, moves, true);
+            int k = random.nextInt(5) > 0 ? 0 : random.nextInt(n);
+            b.makeMove(Move.move(moves[k]));
+        }
+        EndgameSolver solver = new EndgameSolver();
+        assertTrue("not solved", solver.solve(b, 10000));
+        assertTrue("margin not found", solver.exact());
+        int margin = solver.margin();
+        Move best = solver.move();
+        assertEquals("wrong outcome", Integer.signum(margin),
+                     solver.outcome());
+        PieceColor me = b.whoseMove();
+        int n = MoveGenerator.generate(b, moves, false);
+        for (int i = 0; i < n; i += 1) {
+            Move move = Move.move(moves[i]);
+            Board b1 = new Board(b);
+            b1.makeMove(move);
+            int value;
+            if (b1.getWinner() != null) {
+                value = b1.numPieces(me) - b1.numPieces(me.opposite());
+            } else {
+                assertTrue("reply not solved", solver.solve(b1, 10000));
+                value = -solver.margin();
+            }
+            assertTrue("move better than best", value <= margin);
+            if (move == best) {
+                assertEquals("best move not best", margin, value);
+            }
+        }
+    }
+
+    /** Check that values decided by repeating a position are not taken
+     *  as proofs.  Red cannot move, and Blue can jump back and forth
+     *  between a1 and c1 for ever. */
+    @Test
+    public void testRepetition() {
+        Board b = new Board();
+        b.setPosition("rrrrrrr".repeat(4) + "XXXXXrr" + "XXXXXrr"
+                      + "b--XXrr", PieceColor.BLUE);
+        EndgameSolver solver = new EndgameSolver();
+        assertFalse("proved a value decided by repetition",
+                    solver.solve(b, 10000));
+    }
+
+    /** Check that a solve limited to a number of positions, and not to a
+     *  time, stops within that number and does the same on every run. */
+    @Test
+    public void testPositionLimit() {
+        Board b = new Board();
+        EndgameSolver solver1 = new EndgameSolver(),
+            solver2 = new EndgameSolver();
+        assertFalse("solved the opening", solver1.solve(b, 0, 5000));
+        assertFalse("solved the opening", solver2.solve(b, 0, 5000));
+        assertTrue("too many positions", solver1.nodes() <= 5001);
+        assertEquals(solver1.nodes(), solver2.nodes());
+    }
+
+}
@@ -0,0 +1,246 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ucb.util.CommandArgs;
+
+import static ataxx.PieceColor.*;
+
+/** Tunes the weights of WeightedEvaluator by the "Texel" method: it
+ *  plays games of the AI against itself, and then chooses the weights
+ *  that best predict the outcomes of those games from the positions in
+ *  them.  Run with
+ *      java ataxx.EvalTuner [ --games=N ] [ --depth=D ] [ --seed=S ] FILE
+ *  to play N games (default 200), searching to depth D (default 2) after
+ *  RANDOM_PLIES random moves, and write the tuned weights to FILE.
+ *
+ *  The prediction for a position whose evaluation is E is the logistic
+ *  function 1 / (1 + exp(-E / SCALE)), taken as the expected score (1
+ *  for a win, 1/2 for a draw, 0 for a loss) of the player to move.  The
+ *  weights minimize the mean squared error of these predictions, and are
+ *  found by gradient descent (with steps scaled per weight, as in the
+ *  Adam method) starting from the standard weights.
+ *  @author Brian Chiang
+ */
+public class EvalTuner {
+
+    /** Default number of games. */
+    static final int DEFAULT_GAMES = 200;
+
+    /** Default search depth. */
+    static final int DEFAULT_DEPTH = 2;
+
+    /** Number of random moves at the start of each game. */
+    static final int RANDOM_PLIES = 8;
+
+    /** Evaluation at which the player to move is expected to score
+     *  1 / (1 + e^-1), about 0.73. */
+    static final double SCALE = 1000;
+
+    /** Number of steps of gradient descent. */
+    static final int STEPS = 2000;
+
+    /** Size of each step of gradient descent, in units of evaluation. */
+    static final double RATE = 1;
+
+    /** Decay rates of the running averages of the gradient and of its
+     *  square used to scale steps (as in the Adam method). */
+    static final double DECAY1 = 0.9, DECAY2 = 0.999;
+
+    /** Tune weights as described in the class comment, according to
+     *  ARGS0. */
+    public static void main(String[] args0) throws IOException {
+        CommandArgs args =
+            new CommandArgs("--games=(\\d+){0,1} --depth=(\\d+){0,1}"
+                            + " --seed=(\\d+){0,1} --=(.*){1}", args0);
+        if (!args.ok() || args.get("--").size() != 1) {
+            System.err.println("Usage: java ataxx.EvalTuner [ --games=N ] "
+                               + "[ --depth=D ] [ --seed=S ] FILE");
+            System.exit(1);
+        }
+        int games = DEFAULT_GAMES, depth = DEFAULT_DEPTH;
+        long seed = 0;
+        if (args.contains("--games")) {
+            games = args.getInt("--games");
+        }
+        if (args.contains("--depth")) {
+            depth = args.getInt("--depth");
+        }
+        if (args.contains("--seed")) {
+            seed = Long.parseLong(args.getLast("--seed"));
+        }
+        WeightedEvaluator start = WeightedEvaluator.standard();
+        ArrayList<int[]> features = new ArrayList<>();
+        ArrayList<Double> results = new ArrayList<>();
+        selfPlay(games, depth, seed, start, features, results);
+        System.out.printf("%d positions from %d games%n", features.size(),
+                          games);
+        System.out.printf("error before: %.5f%n",
+                          error(toDouble(start.weights()), features, results));
+        WeightedEvaluator tuned = tune(start, features, results);
+        System.out.printf("error after:  %.5f%n",
+                          error(toDouble(tuned.weights()), features, results));
+        try (PrintWriter out =
+             new PrintWriter(new FileWriter(args.get("--").get(0)))) {
+            out.printf("# Weights for WeightedEvaluator, tuned by EvalTuner "
+                       + "on %d positions%n", features.size());
+            tuned.write(out);
+        }
+    }
+
+    /** Play GAMES games, searching to DEPTH with EVALUATOR after random
+     *  openings generated from SEED, and add the features (see
+     *  WeightedEvaluator.features) of each position in them to FEATURES
+     *  and the eventual score of the player to move in it to RESULTS. */
+    static void selfPlay(int games, int depth, long seed,
+                         Evaluator evaluator, List<int[]> features,
+                         List<Double> results) {
+        ExecutorService pool =
+            Executors.newFixedThreadPool(Runtime.getRuntime()
+                                         .availableProcessors());
+        try {
+            List<Future<List<Board>>> played = new ArrayList<>();
+            for (int i = 0; i < games; i += 1) {
+                final long gameSeed = seed + i;
+                played.add(pool.submit(() -> playGame(depth, gameSeed,
+                                                      evaluator)));
+            }
+            for (Future<List<Board>> game : played) {
+                List<Board> positions = game.get();
+                Board last = positions.get(positions.size() - 1);
+                PieceColor winner = last.getWinner();
+                if (winner == null) {
+                    int diff = last.redPieces() - last.bluePieces();
+                    winner = diff > 0 ? RED : diff < 0 ? BLUE : EMPTY;
+                }
+                for (Board board
+                         : positions.subList(0, positions.size() - 1)) {
+                    int[] values =
+                        new int[WeightedEvaluator.FEATURES.length];
+                    WeightedEvaluator.features(board, values);
+                    features.add(values);
+                    results.add(winner == EMPTY ? 0.5
+                                : winner == board.whoseMove() ? 1.0 : 0.0);
+                }
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("self-play failed", excp);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Play one game, searching to DEPTH with EVALUATOR after
+     *  RANDOM_PLIES random moves chosen using SEED, and return the
+     *  positions after the random moves, ending with the final one. */
+    private static List<Board> playGame(int depth, long seed,
+                                        Evaluator evaluator) {
+        Random random = new Random(seed);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Board board = new Board();
+        for (int i = 0; i < RANDOM_PLIES && board.getWinner() == null;
+             i += 1) {
+            int n = MoveGenerator.generate(board, moves, false);
+            board.makeMove(Move.move(moves[random.nextInt(n)]));
+        }
+        AI ai = new AI(null, RED, seed);
+        ai.setTimeLimit(0);
+        ai.setDepth(depth);
+        ai.setEvaluator(evaluator);
+        ArrayList<Board> positions = new ArrayList<>();
+        while (board.getWinner() == null
+               && board.numMoves() < Tournament.MAX_GAME_MOVES) {
+            if (!board.canMove(board.whoseMove())) {
+                board.makeMove(Move.pass());
+                continue;
+            }
+            positions.add(new Board(board));
+            board.makeMove(ai.findMove(board));
+        }
+        positions.add(board);
+        return positions;
+    }
+
+    /** Return weights for a WeightedEvaluator, starting from those of
+     *  START, that minimize the prediction error (see the class comment)
+     *  for the positions with FEATURES and RESULTS. */
+    static WeightedEvaluator tune(WeightedEvaluator start,
+                                  List<int[]> features,
+                                  List<Double> results) {
+        double[] weights = toDouble(start.weights());
+        double[] gradient = new double[weights.length];
+        double[] mean = new double[weights.length];
+        double[] meanSquare = new double[weights.length];
+        int n = features.size();
+        for (int step = 1; step <= STEPS && n > 0; step += 1) {
+            Arrays.fill(gradient, 0);
+            for (int i = 0; i < n; i += 1) {
+                int[] x = features.get(i);
+                double p = predict(weights, x);
+                double d = (p - results.get(i)) * p * (1 - p) / SCALE;
+                for (int f = 0; f < weights.length; f += 1) {
+                    gradient[f] += d * x[f];
+                }
+            }
+            for (int f = 0; f < weights.length; f += 1) {
+                double g = gradient[f] / n;
+                mean[f] = DECAY1 * mean[f] + (1 - DECAY1) * g;
+                meanSquare[f] = DECAY2 * meanSquare[f] + (1 - DECAY2) * g * g;
+                double m = mean[f] / (1 - Math.pow(DECAY1, step)),
+                    v = meanSquare[f] / (1 - Math.pow(DECAY2, step));
+                weights[f] -= RATE * m / (Math.sqrt(v) + 1e-12);
+            }
+        }
+        int[] result = new int[weights.length];
+        for (int f = 0; f < weights.length; f += 1) {
+            result[f] = (int) Math.round(weights[f]);
+        }
+        return new WeightedEvaluator(result);
+    }
+
+    /** Return the mean squared prediction error with WEIGHTS for the
+     *  positions with FEATURES and RESULTS. */
+    static double error(double[] weights, List<int[]> features,
+                        List<Double> results) {
+        double sum = 0;
+        for (int i = 0; i < features.size(); i += 1) {
+            double e = predict(weights, features.get(i)) - results.get(i);
+            sum += e * e;
+        }
+        return sum / Math.max(1, features.size());
+    }
+
+    /** Return the predicted score for a position with features X
+     *  evaluated with WEIGHTS. */
+    private static double predict(double[] weights, int[] x) {
+        double eval = 0;
+        for (int f = 0; f < weights.length; f += 1) {
+            eval += weights[f] * x[f];
+        }
+        return 1 / (1 + Math.exp(-eval / SCALE));
+    }
+
+    /** Return A as an array of doubles. */
+    private static double[] toDouble(int[] a) {
+        double[] result = new double[a.length];
+        for (int i = 0; i < a.length; i += 1) {
+            result[i] = a[i];
+        }
+        return result;
+    }
+
+}
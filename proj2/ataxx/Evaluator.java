@@ -0,0 +1,20 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A static evaluation function, used by the AI to estimate the value of
+ *  the positions at the leaves of its search.
+ *  @author Brian Chiang
+ */
+interface Evaluator {
+
+    /** Return an estimate of the value of BOARD, on which the game is not
+     *  over, to the player to move.  The value of one extra piece is
+     *  about 100.  Evaluators are called at every leaf of every search
+     *  and possibly from several threads at once, so they should be
+     *  fast, allocate nothing, and keep no state between calls. */
+    int evaluate(Board board);
+
+}
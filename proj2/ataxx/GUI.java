@@ -59,13 +59,18 @@ class GUI extends TopLevel implements View, CommandSource, Reporter {
         addMenuButton("Options->Seed...", this::setSeed);
         addMenuRadioButton("Options->Players->Red AI", "Red",
                            false, (dummy) -> send("auto red"));
+        addMenuRadioButton("Options->Players->Red MCTS", "Red",
+                           false, (dummy) -> send("auto red mcts"));
         addMenuRadioButton("Options->Players->Red Manual", "Red",
                            true, (dummy) -> send("manual red"));
         addMenuRadioButton("Options->Players->Blue AI", "Blue",
                            true, (dummy) -> send("auto blue"));
+        addMenuRadioButton("Options->Players->Blue MCTS", "Blue",
+                           false, (dummy) -> send("auto blue mcts"));
         addMenuRadioButton("Options->Players->Blue Manual", "Blue",
                            false, (dummy) -> send("manual blue"));
         addMenuButton("Info->Help", this::doHelp);
+        addMenuButton("Info->Search Statistics", this::showStats);
         _widget = new BoardWidget(_commandQueue);
         add(_widget,
             new LayoutSpec("height", "1",
@@ -167,6 +172,13 @@ class GUI extends TopLevel implements View, CommandSource, Reporter {
         }
     }
 
+    /** Display the statistics of the AI's last search. */
+    private void showStats(String unused) {
+        SearchStats stats = SearchStats.latest();
+        showMessage(stats == null ? "No searches yet." : stats.toString(),
+                    "Search Statistics", "plain");
+    }
+
     /** Return true iff we are currently in block-setting mode. */
     private boolean blockMode() {
         return isSelected("Game->Blocks->Set Blocks");
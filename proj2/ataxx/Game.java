@@ -4,6 +4,11 @@
 
 package ataxx;
 
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
 import static ataxx.PieceColor.*;
 import static ataxx.GameException.error;
 import static ataxx.Utils.*;
@@ -38,6 +43,59 @@ class Game {
         return _board;
     }
 
+    /** Print the welcome message, help, and logged commands on OUT
+     *  rather than the standard output. */
+    void setOutput(PrintStream out) {
+        _out = out;
+    }
+
+    /** Run the searches of automated players on the threads of POOL,
+     *  rather than on the thread playing the game.  POOL may be null
+     *  for the latter, the default.  Players that search with several
+     *  threads also divide their searches among POOL's threads rather
+     *  than their own (see Player.searchPool). */
+    void setSearchPool(ForkJoinPool pool) {
+        _searchPool = pool;
+    }
+
+    /** Return my search pool, or null if I have none. */
+    ForkJoinPool searchPool() {
+        return _searchPool;
+    }
+
+    /** Give automated players created from now on transposition tables
+     *  of BUCKETS buckets (see TranspositionTable), or of the default
+     *  size if BUCKETS is 0, the default. */
+    void setTableBuckets(int buckets) {
+        _tableBuckets = buckets;
+    }
+
+    /** Return the number of buckets in automated players' transposition
+     *  tables, or 0 for the default. */
+    int tableBuckets() {
+        return _tableBuckets;
+    }
+
+    /** Return the move found by SEARCH, an automated player's search,
+     *  run on my search pool, if any (see setSearchPool), and otherwise
+     *  directly. */
+    Move search(Supplier<Move> search) {
+        if (_searchPool == null) {
+            return search.get();
+        }
+        try {
+            return _searchPool.submit(search::get).get();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("search interrupted");
+        } catch (ExecutionException excp) {
+            if (excp.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new Error("search failed", excp.getCause());
+        }
+    }
+
     /** Return true iff the current game is not over. */
     boolean gameInProgress() {
         return _board.getWinner() == null;
@@ -49,7 +107,7 @@ class Game {
     int play() {
         boolean winnerAnnounced;
 
-        System.out.println("Welcome to " + Defaults.VERSION);
+        _out.println("Welcome to " + Defaults.VERSION);
         _board.clear();
         setManual(RED);
         setAuto(BLUE);
@@ -66,6 +124,7 @@ class Game {
                 }
             } else if (!gameInProgress()) {
                 if (!winnerAnnounced) {
+                    stopPlayers();
                     _reporter.announceWin(_board.getWinner());
                     winnerAnnounced = true;
                 }
@@ -150,7 +209,18 @@ class Game {
 
     /** Make the player of COLOR an AI for subsequent moves. */
     private void setAuto(PieceColor color) {
-        setPlayer(color, new AI(this, color, _seed));
+        setAuto(color, "ai");
+    }
+
+    /** Make the player of COLOR an automated player of type KIND for
+     *  subsequent moves: an alpha-beta searcher if KIND is "ai", and a
+     *  Monte Carlo tree searcher if it is "mcts". */
+    private void setAuto(PieceColor color, String kind) {
+        if (kind.equals("mcts")) {
+            setPlayer(color, new MonteCarlo(this, color, _seed));
+        } else {
+            setPlayer(color, new AI(this, color, _seed));
+        }
         _seed += 1;
     }
 
@@ -161,18 +231,37 @@ class Game {
     }
 
     /** Return the Player playing COLOR. */
-    private Player getPlayer(PieceColor color) {
+    Player getPlayer(PieceColor color) {
         return _players[color.ordinal()];
     }
 
-    /** Set getPlayer(COLOR) to PLAYER. */
+    /** Set getPlayer(COLOR) to PLAYER, stopping the player it
+     *  replaces. */
     private void setPlayer(PieceColor color, Player player) {
+        if (getPlayer(color) != null) {
+            getPlayer(color).stop();
+        }
         _players[color.ordinal()] = player;
     }
 
-    /** Clear the board to its initial state. */
+    /** Stop the background work of both players. */
+    private void stopPlayers() {
+        for (Player player : _players) {
+            if (player != null) {
+                player.stop();
+            }
+        }
+    }
+
+    /** Clear the board to its initial state, and tell the players that
+     *  a new game is starting. */
     void clear() {
         _board.clear();
+        for (Player player : _players) {
+            if (player != null) {
+                player.newGame();
+            }
+        }
     }
 
     /** Print the current board using standard board-dump format. */
@@ -187,7 +276,7 @@ class Game {
 
     /** Print a help message. */
     private void help() {
-        printHelpResource(HELP, System.out);
+        printHelpResource(HELP, _out);
     }
 
     /** Seed the random-number generator with SEED. */
@@ -205,7 +294,8 @@ class Game {
             case COMMENT:
                 break;
             case AUTO:
-                setAuto(parseColor(parts[0]));
+                setAuto(parseColor(parts[0]),
+                        parts.length > 1 ? parts[1] : "ai");
                 break;
             case BOARD:
                 printBoard();
@@ -262,7 +352,7 @@ class Game {
      *  String.format. */
     private void log(String format, Object... args) {
         if (_logging) {
-            System.out.printf(format + "%n", args);
+            _out.printf(format + "%n", args);
         }
     }
 
@@ -280,6 +370,14 @@ class Game {
     /** Outlet for responses to the user. */
     private final Reporter _reporter;
 
+    /** Where the welcome message, help, and log are printed. */
+    private PrintStream _out = System.out;
+    /** Pool on which automated players search, or null. */
+    private ForkJoinPool _searchPool;
+    /** Size of automated players' transposition tables in buckets, or 0
+     *  for the default. */
+    private int _tableBuckets;
+
     /** The board on which I record all moves. */
     private final Board _board;
     /** Displayer of boards. */
@@ -0,0 +1,307 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static ataxx.Bitboard.*;
+import static ataxx.PieceColor.*;
+import static ataxx.GameException.error;
+
+/** The moves of one game, with the blocks and random seed it started with
+ *  and its outcome, in a compact binary form for archiving large numbers
+ *  of games (see Tournament --record and Replayer).
+ *
+ *  A record file consists of the int MAGIC followed by the records.  Each
+ *  record is the outcome (0 if the game was unfinished, and otherwise one
+ *  more than the ordinal of the winner, EMPTY for a draw), the long mask
+ *  (see Bitboard) of the blocks, the long seed, the number of moves as an
+ *  unsigned short, and then the moves.  Since there are NUM_MOVES move
+ *  codes, a move cannot be identified by one byte in isolation.  Instead,
+ *  each move is one byte giving its index in the list of legal moves (as
+ *  produced by MoveGenerator.generate without distinct clones) in the
+ *  position before it, which is nearly always less than ESCAPE; other
+ *  moves are ESCAPE followed by the short move code.  Thus a writer and
+ *  reader follow the game on bitboards as they go, and a record that
+ *  decodes at all contains only moves of the pieces of the player to
+ *  move to empty squares within reach.
+ *  @author Brian Chiang
+ */
+class GameRecord {
+
+    /** First word of every record file. */
+    static final int MAGIC = 0x41545847;
+
+    /** Move byte that introduces a move given by its code. */
+    static final int ESCAPE = 0xff;
+
+    /** Greatest number of moves in a record. */
+    static final int MAX_MOVES = 0xffff;
+
+    /** A record of the game played on BOARD since it was last cleared,
+     *  whose random choices were seeded with SEED. */
+    GameRecord(Board board, long seed) {
+        List<Move> moves = board.allMoves();
+        _blocks = board.pieces(BLOCKED);
+        _seed = seed;
+        _winner = board.getWinner();
+        _moves = new int[moves.size()];
+        for (int i = 0; i < _moves.length; i += 1) {
+            _moves[i] = moves.get(i).code();
+        }
+    }
+
+    /** A record of a game starting with BLOCKS whose random choices were
+     *  seeded with SEED, consisting of the moves with codes MOVES, and
+     *  won by WINNER (null if unfinished). */
+    private GameRecord(long blocks, long seed, int[] moves,
+                       PieceColor winner) {
+        _blocks = blocks;
+        _seed = seed;
+        _moves = moves;
+        _winner = winner;
+    }
+
+    /** Return the mask of the blocked squares. */
+    long blocks() {
+        return _blocks;
+    }
+
+    /** Return the seed of the game's random choices. */
+    long seed() {
+        return _seed;
+    }
+
+    /** Return the winner (EMPTY for a draw), or null if the game was
+     *  unfinished. */
+    PieceColor winner() {
+        return _winner;
+    }
+
+    /** Return the codes of the moves, in order. */
+    int[] moves() {
+        return _moves;
+    }
+
+    /** Clear BOARD, set my blocks, and make my moves on it, checking that
+     *  each is legal and that the game ends as recorded. */
+    void replay(Board board) {
+        board.clear();
+        for (long set = _blocks; set != 0; set &= set - 1) {
+            int b = Long.numberOfTrailingZeros(set);
+            if (board.get(square(b)) != BLOCKED) {
+                board.setBlock((char) ('a' + b % SIDE),
+                               (char) ('1' + b / SIDE));
+            }
+        }
+        if (board.pieces(BLOCKED) != _blocks) {
+            throw error("blocks are not symmetric");
+        }
+        for (int i = 0; i < _moves.length; i += 1) {
+            if (board.getWinner() != null) {
+                throw error("move %d after the end of the game", i + 1);
+            }
+            board.makeMove(Move.move(_moves[i]));
+        }
+        if (board.getWinner() != _winner) {
+            throw error("game ends with %s instead of %s",
+                        board.getWinner(), _winner);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof GameRecord)) {
+            return false;
+        }
+        GameRecord other = (GameRecord) obj;
+        return _blocks == other._blocks && _seed == other._seed
+            && _winner == other._winner
+            && Arrays.equals(_moves, other._moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(_blocks ^ _seed) ^ Arrays.hashCode(_moves);
+    }
+
+    /** Return the index of CODE among the first N elements of MOVES, or
+     *  N if it is not there. */
+    private static int indexOf(int code, int[] moves, int n) {
+        for (int k = 0; k < n; k += 1) {
+            if (moves[k] == code) {
+                return k;
+            }
+        }
+        return n;
+    }
+
+    /** Writes records to an output stream. */
+    static class Writer {
+
+        /** A writer of records to OUT, beginning with MAGIC. */
+        Writer(OutputStream out) throws IOException {
+            _out = new DataOutputStream(out);
+            _out.writeInt(MAGIC);
+        }
+
+        /** Append RECORD. */
+        void write(GameRecord record) throws IOException {
+            int[] moves = record._moves;
+            if (moves.length > MAX_MOVES) {
+                throw new IOException("game too long to record");
+            }
+            _out.writeByte(record._winner == null
+                           ? 0 : record._winner.ordinal() + 1);
+            _out.writeLong(record._blocks);
+            _out.writeLong(record._seed);
+            _out.writeShort(moves.length);
+            Position position = new Position(record._blocks);
+            for (int code : moves) {
+                int n = position.generate(_buffer);
+                int k = indexOf(code, _buffer, n);
+                if (k == n) {
+                    throw new IOException("illegal move: "
+                                          + Move.move(code));
+                } else if (k < ESCAPE) {
+                    _out.writeByte(k);
+                } else {
+                    _out.writeByte(ESCAPE);
+                    _out.writeShort(code);
+                }
+                position.makeMove(code);
+            }
+        }
+
+        /** Flush the records written so far to the underlying stream. */
+        void flush() throws IOException {
+            _out.flush();
+        }
+
+        /** The stream written to. */
+        private final DataOutputStream _out;
+        /** Buffer for legal moves. */
+        private final int[] _buffer = new int[MoveGenerator.MAX_MOVES];
+    }
+
+    /** Reads records in turn from an input stream. */
+    static class Reader {
+
+        /** A reader of the records in IN, which must begin with
+         *  MAGIC. */
+        Reader(InputStream in) throws IOException {
+            _in = new DataInputStream(in);
+            if (_in.readInt() != MAGIC) {
+                throw new IOException("not a game record file");
+            }
+        }
+
+        /** Return the next record, or null if there are no more. */
+        GameRecord next() throws IOException {
+            int outcome = _in.read();
+            if (outcome < 0) {
+                return null;
+            }
+            try {
+                if (outcome > PieceColor.values().length) {
+                    throw new IOException("bad outcome in record");
+                }
+                PieceColor winner =
+                    outcome == 0 ? null : PieceColor.values()[outcome - 1];
+                long blocks = _in.readLong();
+                long seed = _in.readLong();
+                int[] moves = new int[_in.readUnsignedShort()];
+                Position position = new Position(blocks);
+                for (int i = 0; i < moves.length; i += 1) {
+                    int n = position.generate(_buffer);
+                    int k = _in.readUnsignedByte();
+                    if (k == ESCAPE) {
+                        moves[i] = _in.readUnsignedShort();
+                        if (indexOf(moves[i], _buffer, n) == n) {
+                            throw new IOException("illegal move in record");
+                        }
+                    } else if (k < n) {
+                        moves[i] = _buffer[k];
+                    } else {
+                        throw new IOException("bad move in record");
+                    }
+                    position.makeMove(moves[i]);
+                }
+                return new GameRecord(blocks, seed, moves, winner);
+            } catch (EOFException excp) {
+                throw new IOException("truncated record");
+            }
+        }
+
+        /** The stream read from. */
+        private final DataInputStream _in;
+        /** Buffer for legal moves. */
+        private final int[] _buffer = new int[MoveGenerator.MAX_MOVES];
+    }
+
+    /** A position during the encoding or decoding of a record, as the
+     *  pieces of the player to move and of the opponent. */
+    private static class Position {
+
+        /** The initial position with blocks BLOCKS. */
+        Position(long blocks) {
+            _mine = INITIAL.pieces(RED) & ~blocks;
+            _theirs = INITIAL.pieces(BLUE) & ~blocks;
+            _blocks = blocks;
+        }
+
+        /** Fill MOVES with the codes of the legal moves, returning their
+         *  number. */
+        int generate(int[] moves) {
+            return MoveGenerator.generate(_mine, ALL & ~(_mine | _theirs
+                                                         | _blocks),
+                                          moves, false);
+        }
+
+        /** Make the move with CODE, which is legal. */
+        void makeMove(int code) {
+            long mine = _mine, theirs = _theirs;
+            if (code != PASS) {
+                int from = MoveGenerator.from(code);
+                int to = MoveGenerator.to(code);
+                long captured = adjacent(to) & theirs;
+                mine |= 1L << to | captured;
+                theirs &= ~captured;
+                if ((jumps(from) & 1L << to) != 0) {
+                    mine &= ~(1L << from);
+                }
+            }
+            _mine = theirs;
+            _theirs = mine;
+        }
+
+        /** Pieces of the player to move and of the opponent. */
+        private long _mine, _theirs;
+        /** The blocked squares. */
+        private final long _blocks;
+    }
+
+    /** The initial position without blocks. */
+    private static final Board INITIAL = new Board();
+
+    /** Code of the pass. */
+    private static final int PASS = Move.pass().code();
+
+    /** The blocked squares. */
+    private final long _blocks;
+    /** Seed of the game's random choices. */
+    private final long _seed;
+    /** Codes of the moves. */
+    private final int[] _moves;
+    /** Winner, or null if unfinished. */
+    private final PieceColor _winner;
+}
@@ -0,0 +1,60 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the GameRecord class.
+ *  @author Brian Chiang
+ */
+public class GameRecordTest {
+
+    @Test
+    public void testGameRecord() throws IOException {
+        Random random = new Random(3);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        List<GameRecord> records = new ArrayList<>();
+        for (int game = 0; game < 20; game += 1) {
+            Board b = new Board();
+            if (game % 2 == 1) {
+                b.setBlock("c3");
+                b.setBlock("d2");
+            }
+            while (b.getWinner() == null && b.numMoves() < 300) {
+                int n = MoveGenerator.generate(b, moves, false);
+                b.makeMove(Move.move(moves[random.nextInt(n)]));
+            }
+            records.add(new GameRecord(b, game));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameRecord.Writer writer = new GameRecord.Writer(out);
+        for (GameRecord record : records) {
+            writer.write(record);
+        }
+        writer.flush();
+        GameRecord.Reader reader =
+            new GameRecord.Reader(new ByteArrayInputStream(out.toByteArray()));
+        Board b = new Board();
+        for (GameRecord record : records) {
+            GameRecord copy = reader.next();
+            assertEquals("record changed", record, copy);
+            copy.replay(b);
+            assertEquals("wrong blocks", record.blocks(),
+                         b.pieces(BLOCKED));
+        }
+        assertNull("extra record", reader.next());
+    }
+
+}
@@ -4,9 +4,15 @@
 
 package ataxx;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.io.Reader;
 import java.util.ArrayList;
 
@@ -24,6 +30,32 @@ public class Main {
     /** Run Ataxx game.  Options (in ARGS0):
      *       --display: Use GUI.
      *       --timing: Display think times for AI.
+     *       --stats: Print statistics of each AI search as a line of
+     *             JSON (also printed with --timing).
+     *       --time=MSEC: Limit AI think time to about MSEC milliseconds
+     *             per move, searching as deeply as that allows.
+     *       --threads=N: Let the AI search with N threads.
+     *       --book=FILE: Let the AI play from the opening book in FILE
+     *             (see BookBuilder).
+     *       --weights=FILE: Let the AI evaluate positions with the
+     *             weights in FILE (see WeightedEvaluator).
+     *       --ponder: Let the AI think while a manual player is
+     *             choosing a move.
+     *       --endgame=N: Let the AI try to solve positions with at most
+     *             N empty squares exactly (see EndgameSolver); 0 for
+     *             never.  Default EndgameSolver.DEFAULT_EMPTIES.
+     *       --analyze=FILE: Instead of playing, run the AI on each of
+     *             the positions in FILE ("-" for the standard input) and
+     *             print the results (see Analyzer).  With it,
+     *             --depth=D sets the depth of search when there is no
+     *             time limit, --jobs=J the number of positions analyzed
+     *             at once (default: one per processor), and --csv
+     *             prints comma-separated values rather than JSON.
+     *       --server=PORT: Instead of playing, host sessions of the text
+     *             interface for clients connecting to PORT on this
+     *             machine (see Server).  With it, --jobs=J sets the
+     *             number of searches by automated players run at once
+     *             (default: one per processor).
      *       --version: Print version number and exit.
      *       --log: Print commands.
      *       --strict: Strict mode---players errors cause error exit.
@@ -34,10 +66,18 @@ public class Main {
     public static void main(String[] args0) {
         CommandArgs args =
             new CommandArgs("--display{0,1} --strict --version --timing --log"
+                            + " --ponder --stats"
+                            + " --time=(\\d+){0,1} --threads=(\\d+){0,1}"
+                            + " --book=(.+){0,1} --weights=(.+){0,1}"
+                            + " --endgame=(\\d+){0,1}"
+                            + " --analyze=(.+){0,1} --depth=(\\d+){0,1}"
+                            + " --jobs=(\\d+){0,1} --csv"
+                            + " --server=(\\d+){0,1}"
                             + " --debug=(\\d+){0,1} --=(.*){0,}", args0);
 
-
-        System.out.println("CS61B Ataxx! Version 3.0");
+        if (!args.contains("--analyze") && !args.contains("--server")) {
+            System.out.println("CS61B Ataxx! Version 3.0");
+        }
 
         if (!args.ok()) {
             usage();
@@ -50,11 +90,48 @@ public class Main {
         }
 
         _strict = args.contains("--strict");
+        _timing = args.contains("--timing");
+        _stats = args.contains("--stats");
+        _ponder = args.contains("--ponder");
+        if (args.contains("--time")) {
+            _timeLimit = args.getInt("--time");
+        }
+        if (args.contains("--threads")) {
+            _threads = Math.max(1, args.getInt("--threads"));
+        }
+        if (args.contains("--endgame")) {
+            _endgameEmpties = args.getInt("--endgame");
+        }
+        if (args.contains("--book")) {
+            String name = args.getLast("--book");
+            try (InputStream in =
+                 new BufferedInputStream(new FileInputStream(name))) {
+                _book = OpeningBook.read(in);
+            } catch (IOException excp) {
+                System.err.printf("Could not read book %s%n", name);
+                System.exit(1);
+            }
+        }
+        if (args.contains("--weights")) {
+            String name = args.getLast("--weights");
+            try (Reader inp = new FileReader(name)) {
+                _evaluator = WeightedEvaluator.read(inp);
+            } catch (IOException | GameException excp) {
+                System.err.printf("Could not read weights %s%n", name);
+                System.exit(1);
+            }
+        }
         boolean log = args.contains("--log");
         if (args.contains("--debug")) {
             Utils.setMessageLevel(args.getInt("--debug"));
         }
 
+        if (args.contains("--analyze")) {
+            analyze(args);
+        } else if (args.contains("--server")) {
+            serve(args);
+        }
+
         Game game;
         if (args.contains("--display")) {
             GUI display = new GUI("Ataxx!");
@@ -86,6 +163,50 @@ public class Main {
         System.exit(game.play());
     }
 
+    /** Analyze the positions in the file given by --analyze in ARGS,
+     *  as described in the comment on main, and exit, with status 1 if
+     *  there were bad positions or the file could not be read. */
+    private static void analyze(CommandArgs args) {
+        String name = args.getLast("--analyze");
+        int jobs = Runtime.getRuntime().availableProcessors(), depth = 0;
+        if (args.contains("--jobs")) {
+            jobs = Math.max(1, args.getInt("--jobs"));
+        }
+        if (args.contains("--depth")) {
+            depth = args.getInt("--depth");
+        }
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(System.out)));
+        Analyzer analyzer =
+            new Analyzer(jobs, depth, args.contains("--csv"), out,
+                         new PrintWriter(System.err, true));
+        try (Reader inp = name.equals("-")
+             ? new InputStreamReader(System.in) : new FileReader(name)) {
+            System.exit(analyzer.analyze(inp) == 0 ? 0 : 1);
+        } catch (IOException | GameException excp) {
+            System.err.printf("Could not analyze %s: %s%n", name,
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Serve sessions on the port given by --server in ARGS, as
+     *  described in the comment on main, until killed. */
+    private static void serve(CommandArgs args) {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        if (args.contains("--jobs")) {
+            jobs = Math.max(1, args.getInt("--jobs"));
+        }
+        try {
+            Server server = new Server(args.getInt("--server"), jobs);
+            System.err.printf("Serving on port %d%n", server.port());
+            server.serve();
+        } catch (IOException excp) {
+            System.err.printf("Could not serve: %s%n", excp.getMessage());
+            System.exit(1);
+        }
+    }
+
     /** Print usage message. */
     private static void usage() {
         printHelpResource(USAGE, System.err);
@@ -100,6 +221,47 @@ public class Main {
 
     /* TIMING */
 
+    /** Return the time limit for AI moves in milliseconds, as set by
+     *  --time, or 0 if there is none. */
+    static long timeLimit() {
+        return _timeLimit;
+    }
+
+    /** Return the number of threads each AI should search with, as set
+     *  by --threads (default 1). */
+    static int threads() {
+        return _threads;
+    }
+
+    /** Return true iff AIs should print search statistics (--stats or
+     *  --timing). */
+    static boolean stats() {
+        return _stats || _timing;
+    }
+
+    /** Return true iff AIs should ponder (--ponder). */
+    static boolean ponder() {
+        return _ponder;
+    }
+
+    /** Return the largest number of empty squares for which AIs should
+     *  try the endgame solver, as set by --endgame. */
+    static int endgameEmpties() {
+        return _endgameEmpties;
+    }
+
+    /** Return the opening book given by --book, or null if there is
+     *  none. */
+    static OpeningBook book() {
+        return _book;
+    }
+
+    /** Return the evaluator for AIs: the one given by --weights, or
+     *  by default, WeightedEvaluator.standard(). */
+    static Evaluator evaluator() {
+        return _evaluator;
+    }
+
     /** Start timing an operation. */
     static void startTiming() {
         if (_timing) {
@@ -133,6 +295,27 @@ public class Main {
     /** True iff AIs should time. */
     private static boolean _timing;
 
+    /** True iff AIs should print search statistics. */
+    private static boolean _stats;
+
+    /** Time limit for AI moves in milliseconds (0 for none). */
+    private static long _timeLimit;
+
+    /** Evaluator for AIs. */
+    private static Evaluator _evaluator = WeightedEvaluator.standard();
+
+    /** Opening book for AIs, or null. */
+    private static OpeningBook _book;
+
+    /** True iff AIs ponder. */
+    private static boolean _ponder;
+
+    /** Largest number of empty squares for the endgame solver. */
+    private static int _endgameEmpties = EndgameSolver.DEFAULT_EMPTIES;
+
+    /** Number of threads for each AI's search. */
+    private static int _threads = 1;
+
     /** True iff using strict mode (in which errors detected by the
      *  manual player terminate the program with an error code of 2. */
     private static boolean _strict;
@@ -0,0 +1,452 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import static ataxx.Bitboard.*;
+import static ataxx.MoveGenerator.canMove;
+import static ataxx.PieceColor.*;
+
+/** A Player that computes its moves by Monte Carlo tree search, as an
+ *  alternative to the alpha-beta search of AI.
+ *
+ *  Each search grows a tree of positions from the current one.  Each
+ *  step (a playout) descends the tree, choosing at each node the move
+ *  that maximizes the UCT bound
+ *      W / N + EXPLORATION * sqrt(ln(P) / N),
+ *  where W is the number of wins (counting draws as half) in the N
+ *  playouts through the move and P is the number of playouts through
+ *  the node, until it reaches a node with a move not yet tried.  It adds
+ *  the position after that move to the tree, and plays on from there
+ *  for up to PLAYOUT_MOVES moves, making the move that gains the most
+ *  pieces with probability GREEDY and a random move otherwise, and
+ *  then judges the game by piece count.  The result is credited to
+ *  every node passed through.  Positions are just bitboards, as in
+ *  EndgameSolver, so that no Board is needed.
+ *
+ *  The search runs for my time limit, or without one, for a fixed
+ *  number of playouts, and chooses the move tried most often.  With
+ *  several threads, each grows its own tree ("root parallelism") and the
+ *  counts for each move are summed.  Each tree is kept for the next
+ *  move, which starts from its node for the new position, if present.
+ *  @author Brian Chiang
+ */
+class MonteCarlo extends Player {
+
+    /** Default number of playouts per thread for each move when there is
+     *  no time limit. */
+    static final int DEFAULT_PLAYOUTS = 20000;
+
+    /** Weight of the exploration term of the UCT bound. */
+    static final double EXPLORATION = 0.3;
+
+    /** Probability of making the greediest move in a playout. */
+    static final double GREEDY = 0.8;
+
+    /** Number of moves after which a playout is decided by piece count.
+     *  Short playouts judge a position better than complete ones. */
+    static final int PLAYOUT_MOVES = 8;
+
+    /** Greatest depth of a search tree. */
+    private static final int MAX_DEPTH = 200;
+
+    /** Number of playouts between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 64;
+
+    /** Code of the pass (see Move.code). */
+    private static final int PASS = Move.pass().code();
+
+    /** A new MonteCarlo for GAME that will play MYCOLOR.  SEED
+     *  initializes its random-number generators, so that, with one
+     *  thread and no time limit, identical seeds produce identical
+     *  moves. */
+    MonteCarlo(Game game, PieceColor myColor, long seed) {
+        super(game, myColor);
+        _seed = seed;
+        _timeLimit = Main.timeLimit();
+        setThreads(Main.threads());
+    }
+
+    /** Limit my searches to about MSEC milliseconds per move, or to
+     *  a fixed number of playouts (see setPlayouts) if MSEC is 0. */
+    void setTimeLimit(long msec) {
+        _timeLimit = msec;
+    }
+
+    /** Make PLAYOUTS playouts per thread for each move when there is no
+     *  time limit. */
+    void setPlayouts(int playouts) {
+        _playoutLimit = playouts;
+    }
+
+    @Override
+    void setThreads(int threads) {
+        _pool = searchPool(threads, _pool);
+        _searchers = new Searcher[Math.max(1, threads)];
+        for (int i = 0; i < _searchers.length; i += 1) {
+            _searchers[i] = new Searcher(new Random(_seed + i));
+        }
+    }
+
+    @Override
+    void newGame() {
+        for (Searcher searcher : _searchers) {
+            searcher._root = null;
+        }
+    }
+
+    @Override
+    boolean isAuto() {
+        return true;
+    }
+
+    @Override
+    String getMove() {
+        if (!getBoard().canMove(myColor())) {
+            game().reportMove(Move.pass(), myColor());
+            return "-";
+        }
+        Main.startTiming();
+        Move move = game().search(() -> findMove(getBoard()));
+        Main.endTiming();
+        game().reportMove(move, myColor());
+        return move.toString();
+    }
+
+    @Override
+    Move findMove(Board board) {
+        PieceColor me = board.whoseMove();
+        long mine = board.pieces(me), theirs = board.pieces(me.opposite());
+        long blocks = board.pieces(BLOCKED);
+        int jumps = board.numJumps();
+        long deadline = System.currentTimeMillis() + _timeLimit;
+        if (_pool == null) {
+            _searchers[0].search(mine, theirs, blocks, jumps, deadline);
+        } else {
+            List<Callable<Object>> tasks = new ArrayList<>();
+            for (Searcher searcher : _searchers) {
+                tasks.add(() -> {
+                    searcher.search(mine, theirs, blocks, jumps, deadline);
+                    return null;
+                });
+            }
+            _pool.invokeAll(tasks);
+        }
+        int[] visits = new int[Move.NUM_MOVES];
+        for (Searcher searcher : _searchers) {
+            Node root = searcher._root;
+            for (int i = 0; i < root._expanded; i += 1) {
+                visits[root._moves[i]] += root._children[i]._visits;
+            }
+        }
+        int best = _searchers[0]._root._moves[0];
+        for (int code = 0; code < visits.length; code += 1) {
+            if (visits[code] > visits[best]) {
+                best = code;
+            }
+        }
+        return Move.move(best);
+    }
+
+    @Override
+    long nodes() {
+        long total;
+        total = 0;
+        for (Searcher searcher : _searchers) {
+            total += searcher._playouts;
+        }
+        return total;
+    }
+
+    /** A position in a search tree and the statistics of the playouts
+     *  through it. */
+    private static class Node {
+
+        /** The position in which the player to move has pieces MINE and
+         *  the opponent THEIRS, the last JUMPS moves were jumps, and the
+         *  blocks are BLOCKS.  BUFFER is scratch space for generating my
+         *  moves. */
+        Node(long mine, long theirs, long blocks, int jumps, int[] buffer) {
+            _mine = mine;
+            _theirs = theirs;
+            _jumps = jumps;
+            long empty = ALL & ~(mine | theirs | blocks);
+            if (jumps >= Board.JUMP_LIMIT || empty == 0
+                || mine == 0 || theirs == 0
+                || (!canMove(mine, empty) && !canMove(theirs, empty))) {
+                int margin = Long.bitCount(mine) - Long.bitCount(theirs);
+                _result = margin > 0 ? 1 : margin < 0 ? 0 : 0.5;
+                _moves = new int[0];
+            } else {
+                _result = -1;
+                int n = MoveGenerator.generate(mine, empty, buffer, true);
+                _moves = Arrays.copyOf(buffer, n);
+            }
+            _children = new Node[_moves.length];
+        }
+
+        /** Return true iff the game is over in my position. */
+        boolean isTerminal() {
+            return _result >= 0;
+        }
+
+        /** Pieces of the player to move and of the opponent. */
+        private final long _mine, _theirs;
+        /** Number of consecutive jumps leading to my position. */
+        private final int _jumps;
+        /** Score (1 for a win, 1/2 for a draw, 0 for a loss) of the
+         *  player to move if the game is over, and otherwise -1. */
+        private final double _result;
+        /** Codes of the legal moves.  Those before _expanded have been
+         *  tried, and lead to the corresponding _children. */
+        private final int[] _moves;
+        /** Positions after the tried moves. */
+        private final Node[] _children;
+        /** Number of moves tried. */
+        private int _expanded;
+        /** Number of playouts through me. */
+        private int _visits;
+        /** Total score of those playouts for the player who moved to my
+         *  position. */
+        private double _wins;
+    }
+
+    /** One thread's search tree and the means to grow it. */
+    private class Searcher {
+
+        /** A searcher choosing randomly using RANDOM. */
+        Searcher(Random random) {
+            _random = random;
+        }
+
+        /** Grow my tree for the position in which the player to move has
+         *  MINE and the opponent THEIRS, the blocks are BLOCKS, and the
+         *  last JUMPS moves were jumps, until DEADLINE (as from
+         *  System.currentTimeMillis) if there is a time limit, and
+         *  otherwise for _playoutLimit playouts.  The tree is reused if it
+         *  has the same blocks and contains that position within three
+         *  moves of its root. */
+        void search(long mine, long theirs, long blocks, int jumps,
+                    long deadline) {
+            if (blocks != _blocks) {
+                _root = null;
+                _blocks = blocks;
+            }
+            _root = find(_root, mine, theirs, jumps, 3);
+            if (_root == null) {
+                _root = new Node(mine, theirs, blocks, jumps, _buffer);
+            }
+            for (int i = 1; true; i += 1) {
+                playout();
+                if (_timeLimit > 0
+                    ? i % CLOCK_INTERVAL == 0
+                      && System.currentTimeMillis() >= deadline
+                    : i >= _playoutLimit) {
+                    break;
+                }
+            }
+        }
+
+        /** Return the node in the tree at NODE, no more than DEPTH moves
+         *  below it, whose position has MINE, THEIRS, and JUMPS, or null
+         *  if there is none. */
+        private Node find(Node node, long mine, long theirs, int jumps,
+                          int depth) {
+            if (node == null) {
+                return null;
+            } else if (node._mine == mine && node._theirs == theirs
+                       && node._jumps == jumps) {
+                return node;
+            } else if (depth > 0) {
+                for (int i = 0; i < node._expanded; i += 1) {
+                    Node result = find(node._children[i], mine, theirs,
+                                       jumps, depth - 1);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /** Perform one playout from my root, as described in the class
+         *  comment. */
+        private void playout() {
+            _playouts += 1;
+            int n;
+            n = 0;
+            Node node = _root;
+            _path[n++] = node;
+            while (!node.isTerminal() && node._expanded == node._moves.length
+                   && n < _path.length - 1) {
+                node = select(node);
+                _path[n++] = node;
+            }
+            double score;
+            if (node.isTerminal()) {
+                score = node._result;
+            } else {
+                if (node._expanded < node._moves.length) {
+                    node = expand(node);
+                    _path[n++] = node;
+                }
+                score = node.isTerminal() ? node._result : rollout(node);
+            }
+            for (int i = n - 1; i >= 0; i -= 1) {
+                _path[i]._visits += 1;
+                _path[i]._wins += 1 - score;
+                score = 1 - score;
+            }
+        }
+
+        /** Return the child of NODE, all of whose moves have been tried,
+         *  with the greatest UCT bound. */
+        private Node select(Node node) {
+            double logVisits = Math.log(node._visits);
+            Node best = null;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < node._expanded; i += 1) {
+                Node child = node._children[i];
+                double bound = child._wins / child._visits
+                    + EXPLORATION * Math.sqrt(logVisits / child._visits);
+                if (bound > bestBound) {
+                    bestBound = bound;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /** Try a random untried move of NODE, and return the resulting
+         *  child. */
+        private Node expand(Node node) {
+            int[] moves = node._moves;
+            int k = node._expanded;
+            int j = k + _random.nextInt(moves.length - k);
+            int move = moves[j];
+            moves[j] = moves[k];
+            moves[k] = move;
+            long mine = node._mine, theirs = node._theirs;
+            int jumps = 0;
+            if (move != PASS) {
+                int from = MoveGenerator.from(move);
+                int to = MoveGenerator.to(move);
+                long captured = adjacent(to) & theirs;
+                mine |= 1L << to | captured;
+                theirs &= ~captured;
+                if ((jumps(from) & 1L << to) != 0) {
+                    mine &= ~(1L << from);
+                    jumps = node._jumps + 1;
+                }
+            }
+            Node child = new Node(theirs, mine, _blocks, jumps, _buffer);
+            node._children[k] = child;
+            node._expanded = k + 1;
+            return child;
+        }
+
+        /** Play on from the position at NODE, as described in the class
+         *  comment, and return the score of the player to move there. */
+        private double rollout(Node node) {
+            long mine = node._mine, theirs = node._theirs;
+            int jumps = node._jumps;
+            boolean flipped = false;
+            for (int ply = 0; ply < PLAYOUT_MOVES; ply += 1) {
+                long empty = ALL & ~(mine | theirs | _blocks);
+                if (jumps >= Board.JUMP_LIMIT || empty == 0
+                    || mine == 0 || theirs == 0) {
+                    break;
+                }
+                if (!canMove(mine, empty)) {
+                    if (!canMove(theirs, empty)) {
+                        break;
+                    }
+                    jumps = 0;
+                } else {
+                    int move = choose(mine, theirs, empty);
+                    int from = MoveGenerator.from(move);
+                    int to = MoveGenerator.to(move);
+                    long captured = adjacent(to) & theirs;
+                    mine |= 1L << to | captured;
+                    theirs &= ~captured;
+                    if ((jumps(from) & 1L << to) != 0) {
+                        mine &= ~(1L << from);
+                        jumps += 1;
+                    } else {
+                        jumps = 0;
+                    }
+                }
+                long t = mine;
+                mine = theirs;
+                theirs = t;
+                flipped = !flipped;
+            }
+            int margin = Long.bitCount(mine) - Long.bitCount(theirs);
+            double score = margin > 0 ? 1 : margin < 0 ? 0 : 0.5;
+            return flipped ? 1 - score : score;
+        }
+
+        /** Return the code of a move for a playout by the player with
+         *  pieces MINE, who can move, against THEIRS, with EMPTY empty:
+         *  with probability GREEDY, one that gains the most pieces (twice
+         *  the number captured, plus one for a clone move), chosen
+         *  randomly among equals, and otherwise any legal move. */
+        private int choose(long mine, long theirs, long empty) {
+            int n = MoveGenerator.generate(mine, empty, _buffer, true);
+            if (_random.nextDouble() >= GREEDY) {
+                return _buffer[_random.nextInt(n)];
+            }
+            int best = -1, bestGain = -1, ties = 0;
+            for (int i = 0; i < n; i += 1) {
+                int move = _buffer[i];
+                int to = MoveGenerator.to(move);
+                int from = MoveGenerator.from(move);
+                int gain = 2 * Long.bitCount(adjacent(to) & theirs)
+                    + ((jumps(from) & 1L << to) == 0 ? 1 : 0);
+                if (gain > bestGain) {
+                    best = move;
+                    bestGain = gain;
+                    ties = 1;
+                } else if (gain == bestGain) {
+                    ties += 1;
+                    if (_random.nextInt(ties) == 0) {
+                        best = move;
+                    }
+                }
+            }
+            return best;
+        }
+
+        /** Root of my tree. */
+        private Node _root;
+        /** Source of random choices. */
+        private final Random _random;
+        /** The blocked squares. */
+        private long _blocks;
+        /** Number of playouts made. */
+        private long _playouts;
+        /** The nodes passed through by the current playout. */
+        private final Node[] _path = new Node[MAX_DEPTH];
+        /** Buffer for generated moves. */
+        private final int[] _buffer = new int[MoveGenerator.MAX_MOVES];
+    }
+
+    /** Seed for my random-number generators. */
+    private final long _seed;
+    /** Time limit for each move in milliseconds, or 0 if there is none. */
+    private long _timeLimit;
+    /** Number of playouts per thread without a time limit. */
+    private int _playoutLimit = DEFAULT_PLAYOUTS;
+    /** Threads for parallel searches, or null for just one. */
+    private ForkJoinPool _pool;
+    /** The searchers, one per thread. */
+    private Searcher[] _searchers;
+}
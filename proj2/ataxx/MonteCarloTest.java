@@ -0,0 +1,58 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the MonteCarlo class.
+ *  @author Brian Chiang
+ */
+public class MonteCarloTest {
+
+    @Test
+    public void testMonteCarlo() {
+        Board b = new Board();
+        for (String move : new String[] { "a7-b6", "a1-c3", "g1-f2",
+                                          "g7-e5" }) {
+            b.makeMove(Move.move(move));
+        }
+        Move[] found = new Move[2];
+        for (int i = 0; i < found.length; i += 1) {
+            MonteCarlo player = new MonteCarlo(null, b.whoseMove(), 7);
+            player.setTimeLimit(0);
+            player.setThreads(1);
+            player.setPlayouts(2000);
+            found[i] = player.findMove(b);
+            assertTrue("illegal move", b.legalMove(found[i]));
+            assertEquals("wrong playout count", 2000, player.nodes());
+        }
+        assertEquals("same seed, different moves", found[0], found[1]);
+    }
+
+    /** Check that a player does not reuse the tree it grew in one game
+     *  in a new game with different blocks, where its moves may be
+     *  illegal. */
+    @Test
+    public void testNewBlocks() {
+        MonteCarlo player = new MonteCarlo(null, BLUE, 7);
+        player.setTimeLimit(0);
+        player.setThreads(1);
+        player.setPlayouts(500);
+        Board b = new Board();
+        b.makeMove(Move.move("a7-b7"));
+        assertTrue("illegal move", b.legalMove(player.findMove(b)));
+        b = new Board();
+        b.setBlock("b6");
+        b.makeMove(Move.move("a7-b7"));
+        for (int i = 0; i < 5; i += 1) {
+            Move move = player.findMove(b);
+            assertTrue("illegal move " + move, b.legalMove(move));
+        }
+    }
+
+}
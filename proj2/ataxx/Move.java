@@ -23,8 +23,9 @@ class Move {
      * are immutable, and for any possible move, there is exactly one
      * object of type Move. */
 
-    /** The move COL0 ROW0 - COL1 ROW1.  This must be a legal move. */
-    private Move(int col0, int row0, int col1, int row1) {
+    /** The move COL0 ROW0 - COL1 ROW1, whose code is CODE.  This must be
+     *  a legal move. */
+    private Move(int col0, int row0, int col1, int row1, int code) {
         _col0 = (char) (col0 + 'a' - 2);
         _row0 = (char) (row0 + '1' - 2);
         _col1 = (char) (col1 + 'a' - 2);
@@ -33,6 +34,7 @@ class Move {
         _toIndex = row1 * EXTENDED_SIDE + col1;
         _isExtend = isExtend();
         _isJump = isJump();
+        _code = code;
     }
 
     /** A pass. */
@@ -40,6 +42,7 @@ class Move {
         _col0 = _col1 = _row0 = _row1 = 0;
         _fromIndex = _toIndex = -1;
         _isJump = _isExtend = false;
+        _code = 0;
     }
 
     /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
@@ -69,6 +72,11 @@ class Move {
         }
     }
 
+    /** Return the Move whose code (see code()) is CODE. */
+    static Move move(int code) {
+        return BY_CODE[code];
+    }
+
     /** Returns a pass. */
     static Move pass() {
         return PASS;
@@ -133,6 +141,13 @@ class Move {
         return _toIndex;
     }
 
+    /** Return a small integer that uniquely identifies me among all
+     *  Moves: 0 for a pass, and 1 .. NUM_MOVES - 1 otherwise.  Useful for
+     *  storing moves compactly in tables. */
+    int code() {
+        return _code;
+    }
+
     @Override
     public String toString() {
         if (isPass()) {
@@ -153,12 +168,18 @@ class Move {
     /** Size of side of a board plus 2-deep boundary. */
     static final int EXTENDED_SIDE = SIDE + 4;
 
+    /** The number of distinct Moves, including the pass. */
+    static final int NUM_MOVES = SIDE * SIDE * 24 + 1;
+
     /** The pass. */
     static final Move PASS = new Move();
 
     /** Linearized indices. */
     private final int _fromIndex, _toIndex;
 
+    /** My code. */
+    private final int _code;
+
     /** Move characteristics, indicating whether move is extension or jump. */
     private boolean _isExtend, _isJump;
 
@@ -170,14 +191,20 @@ class Move {
     private static final Move[][][][] ALL_MOVES =
         new Move[EXTENDED_SIDE][EXTENDED_SIDE][EXTENDED_SIDE][EXTENDED_SIDE];
 
+    /** All Moves, indexed by code. */
+    private static final Move[] BY_CODE = new Move[NUM_MOVES];
+
     static {
+        BY_CODE[0] = PASS;
+        int code = 1;
         for (int c = 2; c < SIDE + 2; c += 1) {
             for (int r = 2; r < SIDE + 2; r += 1) {
                 for (int dc = -2; dc <= 2; dc += 1) {
                     for (int dr = -2; dr <= 2; dr += 1) {
                         if (dc != 0 || dr != 0) {
-                            ALL_MOVES[c][r][c + dc][r + dr] =
-                                new Move(c, r, c + dc, r + dr);
+                            ALL_MOVES[c][r][c + dc][r + dr] = BY_CODE[code] =
+                                new Move(c, r, c + dc, r + dr, code);
+                            code += 1;
                         }
                     }
                 }
@@ -0,0 +1,139 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.PieceColor.*;
+import static ataxx.Bitboard.*;
+
+/** Generates the legal moves in a position into preallocated arrays of
+ *  move codes (see Move.code()), so that a search allocates nothing as
+ *  it goes.  A MoveGenerator holds one such array for each ply of a
+ *  search.
+ *
+ *  Optionally, extending ("clone") moves to the same square from
+ *  different pieces, which all lead to the same position, are generated
+ *  only once.
+ *  @author Brian Chiang
+ */
+class MoveGenerator {
+
+    /** An upper bound on the number of legal moves in any position. */
+    static final int MAX_MOVES = Move.NUM_MOVES;
+
+    /** A generator with buffers for plies 0 .. MAXPLY that generates one
+     *  clone move per target square iff DISTINCTCLONES. */
+    MoveGenerator(int maxPly, boolean distinctClones) {
+        _buffers = new int[maxPly + 1][MAX_MOVES];
+        _distinctClones = distinctClones;
+    }
+
+    /** Return the buffer for moves at PLY. */
+    int[] buffer(int ply) {
+        return _buffers[ply];
+    }
+
+    /** Fill buffer(PLY) with the legal moves for the player to move on
+     *  BOARD, returning their number.  If there are none, the moves
+     *  consist of just a pass. */
+    int generate(Board board, int ply) {
+        return generate(board, _buffers[ply], _distinctClones);
+    }
+
+    /** Fill MOVES with the codes of the legal moves for the player to move
+     *  on BOARD, returning their number.  There is a single clone move to
+     *  each reachable empty square iff DISTINCTCLONES.  If there are no
+     *  legal moves, the moves consist of just a pass. */
+    static int generate(Board board, int[] moves, boolean distinctClones) {
+        return generate(board.pieces(board.whoseMove()),
+                        board.pieces(EMPTY), moves, distinctClones);
+    }
+
+    /** Fill MOVES with the codes of the legal moves of a player whose
+     *  pieces occupy MINE when the empty squares are EMPTY, returning
+     *  their number, as for generate(BOARD, MOVES, DISTINCTCLONES).  For
+     *  each clone move generated when DISTINCTCLONES, the piece moved is
+     *  the one with the lowest bit number. */
+    static int generate(long mine, long empty, int[] moves,
+                        boolean distinctClones) {
+        int n;
+        n = 0;
+        if (distinctClones) {
+            for (long to = dilate(mine) & empty; to != 0; to &= to - 1) {
+                int t = Long.numberOfTrailingZeros(to);
+                int f = Long.numberOfTrailingZeros(adjacent(t) & mine);
+                moves[n++] = CODES[f][t];
+            }
+        }
+        for (long from = mine; from != 0; from &= from - 1) {
+            int f = Long.numberOfTrailingZeros(from);
+            long targets = jumps(f);
+            if (!distinctClones) {
+                targets |= adjacent(f);
+            }
+            for (targets &= empty; targets != 0; targets &= targets - 1) {
+                moves[n++] = CODES[f][Long.numberOfTrailingZeros(targets)];
+            }
+        }
+        if (n == 0) {
+            moves[n++] = Move.pass().code();
+        }
+        return n;
+    }
+
+    /** Return the code of the move from the square with bit number FROM
+     *  to that with bit number TO, which must be adjacent or a jump
+     *  apart. */
+    static int code(int from, int to) {
+        return CODES[from][to];
+    }
+
+    /** Return the bit number of the square moved from by the move with
+     *  CODE, which is not a pass. */
+    static int from(int code) {
+        return FROM[code];
+    }
+
+    /** Return the bit number of the square moved to by the move with
+     *  CODE, which is not a pass. */
+    static int to(int code) {
+        return TO[code];
+    }
+
+    /** Return true iff a player whose pieces occupy the squares in MINE
+     *  has a move to one of the squares in EMPTY. */
+    static boolean canMove(long mine, long empty) {
+        return (reach(mine) & empty) != 0;
+    }
+
+    /** Move codes indexed by the bit numbers (see Bitboard) of their from
+     *  and to squares, or 0 for pairs of squares that are not moves. */
+    private static final int[][] CODES = new int[SQUARES][SQUARES];
+
+    /** The bit numbers of the from and to squares of moves, indexed by
+     *  code. */
+    private static final int[] FROM = new int[Move.NUM_MOVES],
+        TO = new int[Move.NUM_MOVES];
+
+    static {
+        for (int f = 0; f < SQUARES; f += 1) {
+            for (long to = adjacent(f) | jumps(f); to != 0; to &= to - 1) {
+                int t = Long.numberOfTrailingZeros(to);
+                CODES[f][t] =
+                    Move.move((char) ('a' + f % SIDE), (char) ('1' + f / SIDE),
+                              (char) ('a' + t % SIDE), (char) ('1' + t / SIDE))
+                    .code();
+                FROM[CODES[f][t]] = f;
+                TO[CODES[f][t]] = t;
+            }
+        }
+    }
+
+    /** Move buffers, indexed by ply. */
+    private final int[][] _buffers;
+
+    /** True iff generate(BOARD, PLY) makes only one clone move to each
+     *  square. */
+    private final boolean _distinctClones;
+}
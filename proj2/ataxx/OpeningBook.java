@@ -0,0 +1,126 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static ataxx.Bitboard.*;
+
+/** A collection of positions with their best moves, as computed ahead of
+ *  time by deep searches (see BookBuilder).
+ *
+ *  Each position is stored in a canonical orientation: of the eight
+ *  positions obtained by reflecting it (see Bitboard.reflect), the one
+ *  with the least key.  Thus one entry serves every reflection of its
+ *  position.
+ *
+ *  A book file consists of the int MAGIC, the number of entries, and then
+ *  the entries in order of key, each a long key followed by the short
+ *  code (see Move.code()) of the best move in the canonical orientation.
+ *  @author Brian Chiang
+ */
+class OpeningBook {
+
+    /** First word of every book file. */
+    static final int MAGIC = 0x41545842;
+
+    /** An empty book. */
+    OpeningBook() {
+        _entries = new HashMap<>();
+    }
+
+    /** Return the book read from IN, which is left open. */
+    static OpeningBook read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not an opening book");
+        }
+        OpeningBook book = new OpeningBook();
+        for (int n = data.readInt(); n > 0; n -= 1) {
+            long key = data.readLong();
+            book._entries.put(key, (int) data.readShort());
+        }
+        return book;
+    }
+
+    /** Write me to OUT, which is flushed and left open. */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(_entries.size());
+        TreeMap<Long, Integer> sorted = new TreeMap<>(_entries);
+        for (Map.Entry<Long, Integer> entry : sorted.entrySet()) {
+            data.writeLong(entry.getKey());
+            data.writeShort(entry.getValue());
+        }
+        data.flush();
+    }
+
+    /** Return the number of positions in me. */
+    int size() {
+        return _entries.size();
+    }
+
+    /** Return true iff I have an entry for BOARD or a reflection of it. */
+    boolean contains(Board board) {
+        return _entries.containsKey(board.key(canonical(board)));
+    }
+
+    /** Record that MOVE is the best move on BOARD. */
+    void put(Board board, Move move) {
+        int sym = canonical(board);
+        _entries.put(board.key(sym), reflect(sym, move).code());
+    }
+
+    /** Return the recorded best move on BOARD (or on a reflection of
+     *  BOARD, reflected back), or null if there is none or it is not
+     *  legal on BOARD. */
+    Move lookup(Board board) {
+        int sym = canonical(board);
+        Integer code = _entries.get(board.key(sym));
+        if (code == null) {
+            return null;
+        }
+        Move move = reflect(inverse(sym), Move.move(code));
+        return board.legalMove(move) ? move : null;
+    }
+
+    /** Return the symmetry that carries BOARD to its canonical
+     *  orientation. */
+    static int canonical(Board board) {
+        int result = 0;
+        long least = board.key(0);
+        for (int sym = 1; sym < SYMMETRIES; sym += 1) {
+            long key = board.key(sym);
+            if (key < least) {
+                least = key;
+                result = sym;
+            }
+        }
+        return result;
+    }
+
+    /** Return MOVE as reflected by symmetry SYM. */
+    static Move reflect(int sym, Move move) {
+        if (move.isPass()) {
+            return move;
+        }
+        int from = Bitboard.reflect(sym, bit(move.fromIndex())),
+            to = Bitboard.reflect(sym, bit(move.toIndex()));
+        return Move.move((char) ('a' + from % SIDE),
+                         (char) ('1' + from / SIDE),
+                         (char) ('a' + to % SIDE), (char) ('1' + to / SIDE));
+    }
+
+    /** Maps canonical keys to move codes. */
+    private final HashMap<Long, Integer> _entries;
+}
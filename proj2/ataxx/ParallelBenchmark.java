@@ -0,0 +1,67 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/** Measures the speedup of the AI's search with 1, 2, 4, and 8 threads.
+ *  Run with
+ *      java ataxx.ParallelBenchmark DEPTH FILE ...
+ *  where the FILEs are test scripts (such as proj2/testing/*.in) whose
+ *  blocks and moves set up the positions to search.  Each position is
+ *  searched to a fixed depth.
+ *  @author Brian Chiang
+ */
+public class ParallelBenchmark {
+
+    /** Thread counts to compare. */
+    static final int[] THREADS = { 1, 2, 4, 8 };
+
+    /** Search the positions in files ARGS[1..] to depth ARGS[0] with each
+     *  number of THREADS and report times and speedups. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java ataxx.ParallelBenchmark DEPTH "
+                               + "FILE ...");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        ArrayList<Board> positions = new ArrayList<>();
+        for (int i = 1; i < args.length; i += 1) {
+            Board board = SearchBenchmark.position(args[i]);
+            if (board.getWinner() == null
+                && board.canMove(board.whoseMove())) {
+                positions.add(board);
+            }
+        }
+        System.out.printf("%d positions, %d processors%n", positions.size(),
+                          Runtime.getRuntime().availableProcessors());
+        for (Board board : positions) {
+            new AI(null, board.whoseMove(), 0).findMove(board, depth);
+        }
+        double base = 0;
+        for (int threads : THREADS) {
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (Board board : positions) {
+                AI ai = new AI(null, board.whoseMove(), 0);
+                ai.setThreads(threads);
+                ai.findMove(board, depth);
+                nodes += ai.nodes();
+                ai.setThreads(1);
+            }
+            double secs = (System.nanoTime() - start) / 1e9;
+            if (threads == 1) {
+                base = secs;
+            }
+            System.out.printf("%d thread(s): %,12d nodes in %7.3f sec "
+                              + "(%,.0f nodes/sec), speedup %.2f%n",
+                              threads, nodes, secs, nodes / secs,
+                              base / secs);
+        }
+    }
+
+}
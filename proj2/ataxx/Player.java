@@ -4,6 +4,8 @@
 
 package ataxx;
 
+import java.util.concurrent.ForkJoinPool;
+
 /** A generic Ataxx Player.
  *  @author P. N. Hilfinger
  */
@@ -40,6 +42,56 @@ abstract class Player {
      *  board.whoseMove() == myColor() and that the game is not over. */
     abstract String getMove();
 
+    /** Stop any work I am doing in the background while it is not my
+     *  move.  By default, there is none. */
+    void stop() {
+    }
+
+    /** Forget anything I have learned from the game in progress, which
+     *  is being abandoned for a new one.  By default, there is
+     *  nothing. */
+    void newGame() {
+    }
+
+    /** Return a move for the player to move on BOARD, on which the game
+     *  is not over, without consulting my game, or null if I cannot (as
+     *  by default). */
+    Move findMove(Board board) {
+        return null;
+    }
+
+    /** Return the number of positions I have examined in finding
+     *  moves. */
+    long nodes() {
+        return 0;
+    }
+
+    /** Return statistics of my last search, or null if I keep none. */
+    SearchStats stats() {
+        return null;
+    }
+
+    /** Use THREADS threads in finding moves, where I can.  By default,
+     *  does nothing. */
+    void setThreads(int threads) {
+    }
+
+    /** Return the pool to search with THREADS threads: null if THREADS is
+     *  at most 1, and otherwise my game's search pool (see
+     *  Game.setSearchPool), if it has one, or else a new pool of THREADS
+     *  threads.  OLD is the pool used until now (null if none), which is
+     *  shut down unless it is my game's. */
+    ForkJoinPool searchPool(int threads, ForkJoinPool old) {
+        ForkJoinPool shared = _game == null ? null : _game.searchPool();
+        if (old != null && old != shared) {
+            old.shutdown();
+        }
+        if (threads <= 1) {
+            return null;
+        }
+        return shared != null ? shared : new ForkJoinPool(threads);
+    }
+
     /** The game I am playing in. */
     private final Game _game;
     /** The color of my pieces. */
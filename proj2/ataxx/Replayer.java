@@ -0,0 +1,77 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Verifies archives of games (see GameRecord) by replaying them.  Run
+ *  with
+ *      java ataxx.Replayer FILE...
+ *  to make the moves of each game in each FILE on a Board, checking that
+ *  they are legal and that each game ends as recorded.  Reports each bad
+ *  game on the standard error, and the number of games and moves and the
+ *  rate of replay on the standard output.  Exits with status 1 if any
+ *  game or file is bad.
+ *  @author Brian Chiang
+ */
+public class Replayer {
+
+    /** Replay the games in the files named by ARGS, as described in the
+     *  class comment. */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java ataxx.Replayer FILE...");
+            System.exit(1);
+        }
+        Replayer replayer = new Replayer();
+        long start = System.nanoTime();
+        for (String name : args) {
+            try (InputStream in =
+                 new BufferedInputStream(new FileInputStream(name))) {
+                replayer.replay(name, in);
+            } catch (IOException excp) {
+                System.err.printf("%s: %s%n", name, excp.getMessage());
+                replayer._bad += 1;
+            }
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games, %,d moves, %d bad in %.2f sec "
+                          + "(%,.0f moves/sec)%n",
+                          replayer._games, replayer._moves, replayer._bad,
+                          secs, replayer._moves / Math.max(secs, 1e-9));
+        System.exit(replayer._bad == 0 ? 0 : 1);
+    }
+
+    /** Replay the games in IN, whose name is NAME, adding them to my
+     *  counts. */
+    void replay(String name, InputStream in) throws IOException {
+        GameRecord.Reader reader = new GameRecord.Reader(in);
+        int number;
+        number = 0;
+        for (GameRecord record = reader.next(); record != null;
+             record = reader.next()) {
+            number += 1;
+            _games += 1;
+            _moves += record.moves().length;
+            try {
+                record.replay(_board);
+            } catch (GameException excp) {
+                System.err.printf("%s: game %d: %s%n", name, number,
+                                  excp.getMessage());
+                _bad += 1;
+            }
+        }
+    }
+
+    /** The board on which games are replayed. */
+    private final Board _board = new Board();
+    /** Number of games and moves replayed. */
+    private long _games, _moves;
+    /** Number of bad games and files. */
+    private int _bad;
+}
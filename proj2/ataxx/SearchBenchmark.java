@@ -0,0 +1,111 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Scanner;
+
+/** Measures the speed of the AI's search in positions visited per second,
+ *  and the amount of memory it allocates while searching.
+ *  Run with
+ *      java ataxx.SearchBenchmark [ ROUNDS ]
+ *  @author Brian Chiang
+ */
+public class SearchBenchmark {
+
+    /** Default number of times to search each position. */
+    static final int DEFAULT_ROUNDS = 5;
+
+    /** Openings leading to the benchmark positions. */
+    static final String[][] POSITIONS = {
+        {},
+        { "a7-a6", "a1-b1", "g1-f1", "g7-f6", "a6-a5", "a1-a2",
+          "g1-g2", "b1-b2" },
+        { "a7-a6", "a1-b1", "g1-f1", "g7-f6", "a6-a5", "a1-a2",
+          "g1-g2", "b1-b2", "a5-a3", "a1-b3", "a6-a4", "b2-b4",
+          "a7-a5", "b3-b5", "g1-f2", "b5-c4" },
+    };
+
+    /** Return the Board reached from the initial position by MOVES. */
+    static Board position(String[] moves) {
+        Board board = new Board();
+        for (String move : moves) {
+            board.makeMove(move);
+        }
+        return board;
+    }
+
+    /** Return the Board set up by the blocks and moves in the test script
+     *  in file NAME (as in proj2/testing/*.in).  Other commands and
+     *  illegal moves are ignored. */
+    static Board position(String name) throws IOException {
+        Board board = new Board();
+        try (Scanner inp = new Scanner(new FileReader(name))) {
+            while (inp.hasNextLine()) {
+                Command cmnd = Command.parseCommand(inp.nextLine());
+                String[] operands = cmnd.operands();
+                try {
+                    switch (cmnd.commandType()) {
+                    case NEW:
+                        board.clear();
+                        break;
+                    case BLOCK:
+                        board.setBlock(operands[0]);
+                        break;
+                    case PIECEMOVE:
+                        board.makeMove(operands[0]);
+                        break;
+                    default:
+                        break;
+                    }
+                } catch (GameException excp) {
+                    /* Ignore illegal commands. */
+                }
+            }
+        }
+        return board;
+    }
+
+    /** Return the number of bytes allocated so far by this thread, or 0
+     *  if the JVM does not keep track. */
+    static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean()
+            instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread()
+                                                .getId());
+        }
+        return 0;
+    }
+
+    /** Search each of POSITIONS ARGS[0] (default DEFAULT_ROUNDS) times
+     *  and report the rate at which positions are visited. */
+    public static void main(String[] args) {
+        int rounds = args.length == 0 ? DEFAULT_ROUNDS
+            : Integer.parseInt(args[0]);
+        for (String[] moves : POSITIONS) {
+            Board board = position(moves);
+            new AI(null, board.whoseMove(), 0).findMove(board);
+            long nodes, bytes, time;
+            nodes = bytes = time = 0;
+            for (int i = 0; i < rounds; i += 1) {
+                AI ai = new AI(null, board.whoseMove(), 0);
+                long bytes0 = allocatedBytes();
+                long start = System.nanoTime();
+                ai.findMove(board);
+                time += System.nanoTime() - start;
+                bytes += allocatedBytes() - bytes0;
+                nodes += ai.nodes();
+            }
+            double secs = time / 1e9;
+            System.out.printf("after %2d moves: %,10d nodes in %6.3f sec "
+                              + "(%,.0f nodes/sec, %,.1f bytes/node)%n",
+                              moves.length, nodes, secs, nodes / secs,
+                              (double) bytes / nodes);
+        }
+    }
+
+}
@@ -0,0 +1,317 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Statistics describing the AI's search for one move, or totals over
+ *  several such searches (see add): positions visited, transposition
+ *  table probes and hits, the positions in the move ordering of the
+ *  moves that caused beta cutoffs, the average number of moves searched
+ *  per interior node, and, for each iteration of iterative deepening,
+ *  the cumulative positions visited and time used, the score, and the
+ *  principal variation.
+ *
+ *  The AI prints each search's statistics as a line of JSON (toJson) when
+ *  run with --stats or --timing, and publishes them to a registry of the
+ *  most recent searches in this process (see publish, latest, and
+ *  recent), from which the GUI displays them.  Tournament instead takes
+ *  them from each AI (Player.stats) and totals them.
+ *  @author Brian Chiang
+ */
+class SearchStats {
+
+    /** Number of cutoff positions counted separately; cutoffs by later
+     *  moves are counted together with the last. */
+    static final int CUTOFF_SLOTS = 8;
+
+    /** Number of searches kept by the registry. */
+    static final int REGISTRY_SIZE = 256;
+
+    /** Empty statistics for searches by COLOR (null for totals over
+     *  both colors). */
+    SearchStats(PieceColor color) {
+        _color = color;
+        _start = System.currentTimeMillis();
+    }
+
+    /** Empty statistics for totals over several searches. */
+    SearchStats() {
+        this(null);
+    }
+
+    /** Count a probe of the transposition table, which found an entry
+     *  iff HIT. */
+    void probe(boolean hit) {
+        _probes += 1;
+        if (hit) {
+            _hits += 1;
+        }
+    }
+
+    /** Count an interior node, at which NUMMOVES moves were searched. */
+    void expand(int numMoves) {
+        _interior += 1;
+        _movesSearched += numMoves;
+    }
+
+    /** Count a beta cutoff by the move at INDEX in the search order. */
+    void cutoff(int index) {
+        _cutoffs[Math.min(index, CUTOFF_SLOTS - 1)] += 1;
+    }
+
+    /** Count NODES positions visited in looking for a move other than by
+     *  the search whose iterations I record: for example, by an endgame
+     *  solver that failed to solve the position. */
+    void visit(long nodes) {
+        _nodes += nodes;
+    }
+
+    /** Record that an iteration to DEPTH completed with value SCORE and
+     *  principal variation PV, after NODES positions in all. */
+    void iteration(int depth, long nodes, int score, Move[] pv) {
+        StringBuilder moves = new StringBuilder();
+        for (Move move : pv) {
+            moves.append(moves.length() == 0 ? "" : " ").append(move);
+        }
+        _iterations.add(new Iteration(depth, nodes,
+                                      System.currentTimeMillis() - _start,
+                                      score, moves.toString()));
+    }
+
+    /** Record that the search found MOVE, from SOURCE ("search", "book",
+     *  or "endgame"), after visiting NODES more positions, taking the
+     *  time since I was created. */
+    void finish(Move move, String source, long nodes) {
+        _move = move;
+        _source = source;
+        _nodes += nodes;
+        _msec = System.currentTimeMillis() - _start;
+        _moves = 1;
+        if (source.equals("search")) {
+            _searches = 1;
+            _depths = depth();
+        }
+    }
+
+    /** Add the counts in OTHER, which are for positions searched by a
+     *  helper thread, or for another search, to mine. */
+    void add(SearchStats other) {
+        _nodes += other._nodes;
+        _msec += other._msec;
+        _moves += other._moves;
+        _searches += other._searches;
+        _depths += other._depths;
+        _probes += other._probes;
+        _hits += other._hits;
+        _interior += other._interior;
+        _movesSearched += other._movesSearched;
+        for (int i = 0; i < CUTOFF_SLOTS; i += 1) {
+            _cutoffs[i] += other._cutoffs[i];
+        }
+    }
+
+    /** Return the number of positions visited. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of moves found, from any source, totalled. */
+    long moves() {
+        return _moves;
+    }
+
+    /** Return the number of searches (not counting book or endgame
+     *  moves) totalled. */
+    long searches() {
+        return _searches;
+    }
+
+    /** Return the depth of the last completed iteration (0 if none). */
+    int depth() {
+        return _iterations.isEmpty() ? 0
+            : _iterations.get(_iterations.size() - 1)._depth;
+    }
+
+    /** Return the score of the last completed iteration (0 if none). */
+    int score() {
+        return _iterations.isEmpty() ? 0
+            : _iterations.get(_iterations.size() - 1)._score;
+    }
+
+    /** Return the source of the move found ("search", "book", or
+     *  "endgame"), or null if none has been. */
+    String source() {
+        return _source;
+    }
+
+    /** Return the time used in milliseconds. */
+    long msec() {
+        return _msec;
+    }
+
+    /** Return the average depth completed per search. */
+    double averageDepth() {
+        return (double) _depths / Math.max(1, _searches);
+    }
+
+    /** Return the fraction of transposition-table probes that found an
+     *  entry. */
+    double hitRate() {
+        return (double) _hits / Math.max(1, _probes);
+    }
+
+    /** Return the average number of moves searched per interior
+     *  node. */
+    double branching() {
+        return (double) _movesSearched / Math.max(1, _interior);
+    }
+
+    /** Return the fraction of cutoffs caused by the first move
+     *  searched. */
+    double firstCutoffRate() {
+        long total = 0;
+        for (long count : _cutoffs) {
+            total += count;
+        }
+        return (double) _cutoffs[0] / Math.max(1, total);
+    }
+
+    /** Return my statistics as a single line of JSON. */
+    String toJson() {
+        StringBuilder out = new StringBuilder("{");
+        if (_color != null) {
+            out.append(json("\"color\":\"%s\",",
+                            _color.toString().toLowerCase()));
+        }
+        if (_move != null) {
+            out.append(json("\"move\":\"%s\",\"source\":\"%s\",",
+                            _move, _source));
+        }
+        out.append(json("\"msec\":%d,\"nodes\":%d,\"ttProbes\":%d,"
+                        + "\"ttHitRate\":%.4f,\"branching\":%.2f,"
+                        + "\"cutoffs\":[", _msec, _nodes, _probes,
+                        hitRate(), branching()));
+        for (int i = 0; i < CUTOFF_SLOTS; i += 1) {
+            out.append(i == 0 ? "" : ",").append(_cutoffs[i]);
+        }
+        out.append("],\"iterations\":[");
+        for (int i = 0; i < _iterations.size(); i += 1) {
+            Iteration it = _iterations.get(i);
+            out.append(i == 0 ? "" : ",")
+                .append(json("{\"depth\":%d,\"nodes\":%d,\"msec\":%d,"
+                             + "\"score\":%d,\"pv\":\"%s\"}", it._depth,
+                             it._nodes, it._msec, it._score, it._pv));
+        }
+        return out.append("]}").toString();
+    }
+
+    /** Return FORMAT formatted with ARGS as for String.format, but with
+     *  numbers formatted as JSON requires, whatever the locale. */
+    private static String json(String format, Object... args) {
+        return String.format(Locale.ROOT, format, args);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        if (_move != null) {
+            out.append(String.format("%s (%s) in %d msec%n", _move,
+                                     _source, _msec));
+        }
+        out.append(String.format("%,d positions, TT hit rate %.1f%%, "
+                                 + "%.2f moves/interior node, "
+                                 + "%.1f%% of cutoffs by first move%n",
+                                 _nodes, 100 * hitRate(), branching(),
+                                 100 * firstCutoffRate()));
+        for (Iteration it : _iterations) {
+            out.append(String.format("depth %d: %,d positions, %d msec, "
+                                     + "score %d, pv %s%n", it._depth,
+                                     it._nodes, it._msec, it._score,
+                                     it._pv));
+        }
+        return out.toString();
+    }
+
+    /** Add STATS to the registry of recent searches, discarding the
+     *  oldest if it is full. */
+    static void publish(SearchStats stats) {
+        synchronized (REGISTRY) {
+            if (REGISTRY.size() == REGISTRY_SIZE) {
+                REGISTRY.removeFirst();
+            }
+            REGISTRY.addLast(stats);
+        }
+    }
+
+    /** Return the most recently published statistics, or null if there
+     *  are none. */
+    static SearchStats latest() {
+        synchronized (REGISTRY) {
+            return REGISTRY.peekLast();
+        }
+    }
+
+    /** Return the statistics in the registry, oldest first. */
+    static List<SearchStats> recent() {
+        synchronized (REGISTRY) {
+            return new ArrayList<>(REGISTRY);
+        }
+    }
+
+    /** One completed iteration of a search. */
+    private static class Iteration {
+        /** An iteration to DEPTH that ended after NODES positions and
+         *  MSEC milliseconds in all, with SCORE and principal variation
+         *  PV. */
+        Iteration(int depth, long nodes, long msec, int score, String pv) {
+            _depth = depth;
+            _nodes = nodes;
+            _msec = msec;
+            _score = score;
+            _pv = pv;
+        }
+
+        /** Depth searched. */
+        private final int _depth;
+        /** Cumulative positions visited. */
+        private final long _nodes;
+        /** Cumulative time in milliseconds. */
+        private final long _msec;
+        /** Value of the root position. */
+        private final int _score;
+        /** Principal variation, as moves separated by blanks. */
+        private final String _pv;
+    }
+
+    /** The most recently published statistics. */
+    private static final ArrayDeque<SearchStats> REGISTRY =
+        new ArrayDeque<>();
+
+    /** Color searched for, or null. */
+    private final PieceColor _color;
+    /** Time (as from System.currentTimeMillis) the search started. */
+    private final long _start;
+    /** Move found, or null. */
+    private Move _move;
+    /** Where the move came from. */
+    private String _source;
+    /** Positions visited and time used in milliseconds. */
+    private long _nodes, _msec;
+    /** Number of moves totalled, number of those found by searches,
+     *  and sum of the searches' depths. */
+    private long _moves, _searches, _depths;
+    /** Transposition-table probes and hits. */
+    private long _probes, _hits;
+    /** Interior nodes and the moves searched from them. */
+    private long _interior, _movesSearched;
+    /** Cutoffs by position of the move in the search order. */
+    private final long[] _cutoffs = new long[CUTOFF_SLOTS];
+    /** Completed iterations. */
+    private final ArrayList<Iteration> _iterations = new ArrayList<>();
+}
@@ -0,0 +1,127 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static ataxx.PieceColor.*;
+
+/** Hosts concurrent sessions of Ataxx on a local socket (see the --server
+ *  option of Main).  Each connection is a session of the ordinary text
+ *  interface: the client sends the same commands and moves, one per
+ *  line, that Main reads from the standard input, and receives the
+ *  messages, errors, and moves that Main prints, without prompts.  Each
+ *  session is a separate Game, which ends when the client quits or
+ *  closes the connection.
+ *
+ *  Sessions run on their own threads, which spend most of their time
+ *  waiting for input.  The searches of the sessions' automated players
+ *  instead run on a fixed pool of threads (see Game.setSearchPool), so
+ *  that however many sessions are thinking at once, the searches share
+ *  a bounded number of processors and do not delay the input and output
+ *  of the other sessions.  Searches beyond the pool's size wait their
+ *  turn.  Players that search with several threads (see --threads)
+ *  divide their searches among the same pool rather than starting
+ *  threads of their own.  The players' transposition tables are smaller
+ *  than usual (TABLE_BUCKETS), to limit the memory each session uses.
+ *  @author Brian Chiang
+ */
+class Server {
+
+    /** Number of buckets in the transposition tables of the sessions'
+     *  automated players, which are smaller than the default (see
+     *  TranspositionTable.DEFAULT_BUCKETS) so that the memory used
+     *  grows more slowly with the number of sessions. */
+    static final int TABLE_BUCKETS = 1 << 13;
+
+    /** A server accepting connections to PORT on the loopback address
+     *  (any free port if PORT is 0), whose sessions' automated players
+     *  search at most SEARCHES positions at once. */
+    Server(int port, int searches) throws IOException {
+        _socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        _sessions = Executors.newCachedThreadPool();
+        _searches = new ForkJoinPool(searches);
+    }
+
+    /** Return the port on which I accept connections. */
+    int port() {
+        return _socket.getLocalPort();
+    }
+
+    /** Accept connections and run a session for each, until close is
+     *  called. */
+    void serve() {
+        while (!_socket.isClosed()) {
+            try {
+                Socket client = _socket.accept();
+                _clients.add(client);
+                _sessions.execute(() -> session(client));
+            } catch (IOException excp) {
+                if (!_socket.isClosed()) {
+                    System.err.printf("server: %s%n", excp.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Stop accepting connections and end all sessions. */
+    void close() {
+        try {
+            _socket.close();
+            for (Socket client : _clients) {
+                client.close();
+            }
+        } catch (IOException excp) {
+            /* Ignore failures to close. */
+        }
+        _sessions.shutdown();
+        _searches.shutdownNow();
+    }
+
+    /** Play a session with the client connected to CLIENT, closing the
+     *  connection at the end. */
+    private void session(Socket client) {
+        try (client) {
+            PrintStream out =
+                new PrintStream(client.getOutputStream(), true);
+            Game game =
+                new Game(new ReaderSource(new InputStreamReader(
+                             client.getInputStream()), false),
+                         (b) -> { }, new TextReporter(out, out), false);
+            game.setOutput(out);
+            game.setSearchPool(_searches);
+            game.setTableBuckets(TABLE_BUCKETS);
+            game.play();
+            for (PieceColor color : new PieceColor[] { RED, BLUE }) {
+                game.getPlayer(color).stop();
+                game.getPlayer(color).setThreads(1);
+            }
+        } catch (IOException | GameException excp) {
+            System.err.printf("session: %s%n", excp.getMessage());
+        } finally {
+            _clients.remove(client);
+        }
+    }
+
+    /** Socket on which connections are accepted. */
+    private final ServerSocket _socket;
+    /** Threads running sessions. */
+    private final ExecutorService _sessions;
+    /** Threads running the searches of automated players, including
+     *  the parallel parts of those searching with several threads. */
+    private final ForkJoinPool _searches;
+    /** Connections of the sessions in progress. */
+    private final Set<Socket> _clients = ConcurrentHashMap.newKeySet();
+}
@@ -0,0 +1,109 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.ForkJoinPool;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the Server class.
+ *  @author Brian Chiang
+ */
+public class ServerTest {
+
+    /** Return the first line from INP that matches PATTERN, or null if
+     *  there is none before the end. */
+    private static String readUntil(BufferedReader inp, String pattern)
+        throws IOException {
+        for (String line = inp.readLine(); line != null;
+             line = inp.readLine()) {
+            if (line.matches(pattern)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testSessions() throws Exception {
+        Server server = new Server(0, 1);
+        Thread serving = new Thread(server::serve);
+        serving.start();
+        Socket[] clients = new Socket[3];
+        BufferedReader[] inputs = new BufferedReader[clients.length];
+        PrintWriter[] outputs = new PrintWriter[clients.length];
+        try {
+            for (int i = 0; i < clients.length; i += 1) {
+                clients[i] = new Socket(InetAddress.getLoopbackAddress(),
+                                        server.port());
+                clients[i].setSoTimeout(60000);
+                inputs[i] = new BufferedReader(
+                    new InputStreamReader(clients[i].getInputStream()));
+                outputs[i] =
+                    new PrintWriter(clients[i].getOutputStream(), true);
+                assertTrue("no welcome",
+                           inputs[i].readLine().startsWith("Welcome"));
+            }
+            for (PrintWriter output : outputs) {
+                output.println("a7-b7");
+            }
+            for (BufferedReader input : inputs) {
+                assertNotNull("no reply",
+                              readUntil(input, "\\* Blue moves .*\\."));
+            }
+            outputs[1].println("foo");
+            assertEquals("Unknown command.", inputs[1].readLine());
+            outputs[2].close();
+            for (int i = 0; i < 2; i += 1) {
+                outputs[i].println("quit");
+                assertNull("session not ended", inputs[i].readLine());
+            }
+        } finally {
+            server.close();
+            serving.join();
+        }
+    }
+
+    /** Check that an AI in a game with a search pool divides its
+     *  searches among that pool's threads, without deadlock even when
+     *  the pool has only one thread, and leaves the pool running when
+     *  it stops using it. */
+    @Test
+    public void testSharedPool() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+            Game game =
+                new Game(new ReaderSource(new StringReader(""), false),
+                         (b) -> { }, new TextReporter(out, out), false);
+            game.setSearchPool(pool);
+            game.setTableBuckets(Server.TABLE_BUCKETS);
+            AI ai = new AI(game, RED, 0);
+            ai.setTimeLimit(0);
+            ai.setDepth(3);
+            ai.setThreads(2);
+            Board board = game.getBoard();
+            Move move = game.search(() -> ai.findMove(board));
+            assertTrue("illegal move " + move, board.legalMove(move));
+            ai.setThreads(1);
+            assertFalse("shared pool shut down", pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+
+/** Measures the speed of move generation and of search on boards of
+ *  several sizes (see SizedBoard).  Run with
+ *      java ataxx.SizeBenchmark [ DEPTH [ SIDE ... ] ]
+ *  to search POSITIONS positions reached by random opening moves on
+ *  boards of each SIDE (default 7, 9, and 11) to DEPTH plies (default
+ *  DEFAULT_DEPTH), and report the moves per position and the positions
+ *  visited per second.  All sizes are searched WARMUPS times before any
+ *  is timed, so that the order of the sizes does not matter.
+ *  @author Brian Chiang
+ */
+public class SizeBenchmark {
+
+    /** Default depth of search. */
+    static final int DEFAULT_DEPTH = 5;
+
+    /** Default board sizes. */
+    static final int[] DEFAULT_SIDES = { 7, 9, 11 };
+
+    /** Number of positions searched at each size. */
+    static final int POSITIONS = 8;
+
+    /** Number of times every position of every size is searched before
+     *  any is timed, so that no size is timed before the JIT compiler
+     *  has settled. */
+    static final int WARMUPS = 3;
+
+    /** Number of random moves leading to each position. */
+    static final int OPENING_MOVES = 10;
+
+    /** Return a board SIDE squares on a side after OPENING_MOVES random
+     *  moves chosen with RANDOM. */
+    static SizedBoard position(int side, Random random) {
+        SizedBoard board = new SizedBoard(side);
+        int[] moves = new int[board.maxMoves()];
+        for (int i = 0; i < OPENING_MOVES && board.getWinner() == null;
+             i += 1) {
+            board.makeMove(moves[random.nextInt(board.generate(moves))]);
+        }
+        return board;
+    }
+
+    /** Search positions on boards of each size given by ARGS, as in the
+     *  class comment. */
+    public static void main(String[] args) {
+        int depth = args.length == 0 ? DEFAULT_DEPTH
+            : Integer.parseInt(args[0]);
+        int[] sides = DEFAULT_SIDES;
+        if (args.length > 1) {
+            sides = new int[args.length - 1];
+            for (int i = 1; i < args.length; i += 1) {
+                sides[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        SizedBoard[][] boards = new SizedBoard[sides.length][POSITIONS];
+        long[] moves = new long[sides.length];
+        for (int k = 0; k < sides.length; k += 1) {
+            Random random = new Random(sides[k]);
+            for (int i = 0; i < POSITIONS; i += 1) {
+                boards[k][i] = position(sides[k], random);
+                moves[k] += boards[k][i]
+                    .generate(new int[boards[k][i].maxMoves()]);
+            }
+        }
+        for (int round = 0; round < WARMUPS; round += 1) {
+            for (SizedBoard[] positions : boards) {
+                for (SizedBoard board : positions) {
+                    new SizedSearch().search(board, depth);
+                }
+            }
+        }
+        for (int k = 0; k < sides.length; k += 1) {
+            SizedSearch search = new SizedSearch();
+            long time = 0;
+            for (SizedBoard board : boards[k]) {
+                long start = System.nanoTime();
+                search.search(board, depth);
+                time += System.nanoTime() - start;
+            }
+            double secs = time / 1e9;
+            System.out.printf("%2dx%-2d: %5.1f moves/position, %,12d nodes "
+                              + "in %6.3f sec (%,.0f nodes/sec)%n",
+                              sides[k], sides[k],
+                              (double) moves[k] / POSITIONS,
+                              search.nodes(), secs, search.nodes() / secs);
+        }
+    }
+
+}
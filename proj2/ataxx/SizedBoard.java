@@ -0,0 +1,409 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static ataxx.PieceColor.*;
+import static ataxx.GameException.error;
+
+/** An Ataxx board of any side from MIN_SIDE to MAX_SIDE, for analysing
+ *  larger variants of the game.  The game itself (Board, Move, and the
+ *  command language) is fixed at the standard 7x7; this class follows
+ *  the same rules on other sizes, with the pieces starting in the
+ *  corners and red to move.
+ *
+ *  Squares are numbered row * SIDE + column, with row 0 the bottom row
+ *  and column 0 the leftmost.  A move is encoded as an int, FROM * SQUARES
+ *  + TO, where SQUARES is the number of squares and FROM and TO are
+ *  square numbers, or PASS.  The sets of squares holding each color are
+ *  kept as masks of as many 64-bit words as the size requires (one for
+ *  sizes up to 8x8, two up to 11x11, and so on), and the tables of each
+ *  square's neighbors and jump targets, as lists and as masks, are
+ *  computed once per size (see Geometry).  Moves are undone from an int
+ *  journal as in Board.
+ *  @author Brian Chiang
+ */
+class SizedBoard {
+
+    /** Smallest and largest sizes of board. */
+    static final int MIN_SIDE = 5, MAX_SIDE = 15;
+
+    /** Code of the pass. */
+    static final int PASS = -1;
+
+    /** A new board SIDE squares on a side in the initial position. */
+    SizedBoard(int side) {
+        if (side < MIN_SIDE || side > MAX_SIDE) {
+            throw error("board size must be between %d and %d",
+                        MIN_SIDE, MAX_SIDE);
+        }
+        _geometry = Geometry.of(side);
+        _cells = new byte[_geometry._squares];
+        _sets = new long[3][_geometry._words];
+        _empty = _geometry._squares;
+        _stamps = new int[_geometry._squares];
+        set(square(0, side - 1), RED);
+        set(square(side - 1, 0), RED);
+        set(square(0, 0), BLUE);
+        set(square(side - 1, side - 1), BLUE);
+        _whoseMove = RED;
+    }
+
+    /** Return the number of squares on a side. */
+    int side() {
+        return _geometry._side;
+    }
+
+    /** Return the number of squares. */
+    int squares() {
+        return _geometry._squares;
+    }
+
+    /** Return the largest number of moves that generate can produce. */
+    int maxMoves() {
+        return _geometry._squares * 17 + 1;
+    }
+
+    /** Return the number of the square in column COL and row ROW, each
+     *  numbered from 0. */
+    int square(int col, int row) {
+        return row * _geometry._side + col;
+    }
+
+    /** Return the code of the move from square FROM to square TO. */
+    int move(int from, int to) {
+        return from * _geometry._squares + to;
+    }
+
+    /** Return the contents of square SQ. */
+    PieceColor get(int sq) {
+        return COLORS[_cells[sq]];
+    }
+
+    /** Return the player to move. */
+    PieceColor whoseMove() {
+        return _whoseMove;
+    }
+
+    /** Return the number of pieces of COLOR (RED or BLUE). */
+    int numPieces(PieceColor color) {
+        return _counts[side(color)];
+    }
+
+    /** Return the number of empty squares. */
+    int numEmpty() {
+        return _empty;
+    }
+
+    /** Return the winner (EMPTY for a draw), or null if the game is not
+     *  over, as for Board.getWinner. */
+    PieceColor getWinner() {
+        return _winner;
+    }
+
+    /** Place blocks on the square in column COL and row ROW and on its
+     *  reflections across the middle row and column, which must all be
+     *  empty, before any move. */
+    void setBlock(int col, int row) {
+        int last = _geometry._side - 1;
+        int[] squares = {
+            square(col, row), square(last - col, row),
+            square(col, last - row), square(last - col, last - row)
+        };
+        if (_journalSize > 0) {
+            throw error("blocks must be placed before moving");
+        }
+        for (int sq : squares) {
+            if (_cells[sq] != EMPTY.ordinal()
+                && _cells[sq] != BLOCKED.ordinal()) {
+                throw error("Illegal block placement");
+            }
+        }
+        for (int sq : squares) {
+            if (_cells[sq] == EMPTY.ordinal()) {
+                set(sq, BLOCKED);
+            }
+        }
+        _winner = outcome();
+    }
+
+    /** Return true iff player WHO has a move to an empty square. */
+    boolean canMove(PieceColor who) {
+        long[] mine = _sets[side(who)];
+        long[][] reach = _geometry._reach;
+        for (int w = 0; w < mine.length; w += 1) {
+            for (long bits = mine[w]; bits != 0; bits &= bits - 1) {
+                long[] targets =
+                    reach[64 * w + Long.numberOfTrailingZeros(bits)];
+                for (int v = 0; v < targets.length; v += 1) {
+                    if ((targets[v] & emptyWord(v)) != 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Fill MOVES, which must have at least maxMoves() elements, with
+     *  the codes of the legal moves of the player to move, returning
+     *  their number.  As for MoveGenerator.generate with distinct clones,
+     *  there is one clone move to each empty square next to one of the
+     *  player's pieces, from the lowest numbered such piece.  The moves
+     *  are just a pass if there are no others. */
+    int generate(int[] moves) {
+        int n;
+        n = 0;
+        int[][] neighbors = _geometry._neighbors, jumps = _geometry._jumps;
+        long[] mine = _sets[side(_whoseMove)];
+        int squares = _geometry._squares;
+        _stamp += 1;
+        for (int w = 0; w < mine.length; w += 1) {
+            for (long bits = mine[w]; bits != 0; bits &= bits - 1) {
+                int from = 64 * w + Long.numberOfTrailingZeros(bits);
+                for (int to : neighbors[from]) {
+                    if (_cells[to] == 0 && _stamps[to] != _stamp) {
+                        _stamps[to] = _stamp;
+                        moves[n++] = from * squares + to;
+                    }
+                }
+            }
+        }
+        for (int w = 0; w < mine.length; w += 1) {
+            for (long bits = mine[w]; bits != 0; bits &= bits - 1) {
+                int from = 64 * w + Long.numberOfTrailingZeros(bits);
+                for (int to : jumps[from]) {
+                    if (_cells[to] == 0) {
+                        moves[n++] = from * squares + to;
+                    }
+                }
+            }
+        }
+        if (n == 0) {
+            moves[n++] = PASS;
+        }
+        return n;
+    }
+
+    /** Return the number of the opponent's pieces that MOVE, a legal move
+     *  of the player to move, would capture. */
+    int captures(int move) {
+        if (move == PASS) {
+            return 0;
+        }
+        long[] adjacent = _geometry._adjacent[move % _geometry._squares];
+        long[] theirs = _sets[1 - side(_whoseMove)];
+        int count;
+        count = 0;
+        for (int w = 0; w < adjacent.length; w += 1) {
+            count += Long.bitCount(adjacent[w] & theirs[w]);
+        }
+        return count;
+    }
+
+    /** Make MOVE, which must be legal, for the player to move. */
+    void makeMove(int move) {
+        journal(-_jumps - 1);
+        PieceColor me = _whoseMove;
+        if (move == PASS) {
+            _jumps = 0;
+        } else {
+            int squares = _geometry._squares;
+            int from = move / squares, to = move % squares;
+            recordedSet(to, me);
+            if (Arrays.binarySearch(_geometry._neighbors[from], to) >= 0) {
+                _jumps = 0;
+            } else {
+                recordedSet(from, EMPTY);
+                _jumps += 1;
+            }
+            byte opponent = (byte) me.opposite().ordinal();
+            for (int sq : _geometry._neighbors[to]) {
+                if (_cells[sq] == opponent) {
+                    recordedSet(sq, me);
+                }
+            }
+        }
+        _whoseMove = me.opposite();
+        _winner = outcome();
+    }
+
+    /** Undo the last move not yet undone. */
+    void undo() {
+        if (_journalSize == 0) {
+            throw error("Not Undoable");
+        }
+        int entry;
+        while ((entry = _journal[--_journalSize]) >= 0) {
+            set(entry >> 2, COLORS[entry & 3]);
+        }
+        _jumps = -entry - 1;
+        _whoseMove = _whoseMove.opposite();
+        _winner = null;
+    }
+
+    /** Return the winner of the current position, as for getWinner. */
+    private PieceColor outcome() {
+        int red = _counts[0], blue = _counts[1];
+        if (_jumps >= Board.JUMP_LIMIT || _empty == 0
+            || (!canMove(RED) && !canMove(BLUE))) {
+            return red > blue ? RED : blue > red ? BLUE : EMPTY;
+        } else if (red == 0) {
+            return BLUE;
+        } else if (blue == 0) {
+            return RED;
+        } else {
+            return null;
+        }
+    }
+
+    /** Return word W of the mask of empty squares. */
+    private long emptyWord(int w) {
+        return _geometry._all[w] & ~(_sets[0][w] | _sets[1][w] | _sets[2][w]);
+    }
+
+    /** Return the index in _sets and _counts for COLOR: 0 for RED, 1 for
+     *  BLUE, and 2 for BLOCKED. */
+    private static int side(PieceColor color) {
+        return color == RED ? 0 : color == BLUE ? 1 : 2;
+    }
+
+    /** Set square SQ to V, recording its previous contents in the
+     *  journal. */
+    private void recordedSet(int sq, PieceColor v) {
+        journal(sq << 2 | _cells[sq]);
+        set(sq, v);
+    }
+
+    /** Set square SQ to V, keeping the masks and counts up to date. */
+    private void set(int sq, PieceColor v) {
+        PieceColor old = COLORS[_cells[sq]];
+        long bit = 1L << sq;
+        if (old != EMPTY) {
+            _sets[side(old)][sq >> 6] &= ~bit;
+            if (old != BLOCKED) {
+                _counts[side(old)] -= 1;
+            }
+        } else {
+            _empty -= 1;
+        }
+        if (v != EMPTY) {
+            _sets[side(v)][sq >> 6] |= bit;
+            if (v != BLOCKED) {
+                _counts[side(v)] += 1;
+            }
+        } else {
+            _empty += 1;
+        }
+        _cells[sq] = (byte) v.ordinal();
+    }
+
+    /** Append ENTRY to the undo journal, enlarging it as needed. */
+    private void journal(int entry) {
+        if (_journalSize == _journal.length) {
+            _journal = Arrays.copyOf(_journal, 2 * _journal.length);
+        }
+        _journal[_journalSize++] = entry;
+    }
+
+    /** The tables describing the squares of one size of board. */
+    private static class Geometry {
+
+        /** Return the tables for boards SIDE squares on a side. */
+        static synchronized Geometry of(int side) {
+            return GEOMETRIES.computeIfAbsent(side, Geometry::new);
+        }
+
+        /** Tables for boards SIDE squares on a side. */
+        Geometry(int side) {
+            _side = side;
+            _squares = side * side;
+            _words = (_squares + 63) / 64;
+            _all = new long[_words];
+            _neighbors = new int[_squares][];
+            _jumps = new int[_squares][];
+            _adjacent = new long[_squares][_words];
+            _reach = new long[_squares][_words];
+            int[] near = new int[8], far = new int[16];
+            for (int sq = 0; sq < _squares; sq += 1) {
+                _all[sq >> 6] |= 1L << sq;
+                int col = sq % side, row = sq / side, n1 = 0, n2 = 0;
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    for (int dc = -2; dc <= 2; dc += 1) {
+                        int c = col + dc, r = row + dr;
+                        if ((dc == 0 && dr == 0) || c < 0 || c >= side
+                            || r < 0 || r >= side) {
+                            continue;
+                        }
+                        int to = r * side + c;
+                        if (Math.abs(dc) <= 1 && Math.abs(dr) <= 1) {
+                            near[n1++] = to;
+                            _adjacent[sq][to >> 6] |= 1L << to;
+                        } else {
+                            far[n2++] = to;
+                        }
+                        _reach[sq][to >> 6] |= 1L << to;
+                    }
+                }
+                _neighbors[sq] = Arrays.copyOf(near, n1);
+                _jumps[sq] = Arrays.copyOf(far, n2);
+            }
+        }
+
+        /** Number of squares on a side and in all. */
+        private final int _side, _squares;
+        /** Number of words in a mask. */
+        private final int _words;
+        /** Mask of all squares. */
+        private final long[] _all;
+        /** Adjacent squares and squares a jump away from each square, in
+         *  increasing order. */
+        private final int[][] _neighbors, _jumps;
+        /** Masks of the adjacent squares and of the squares within
+         *  reach of each square. */
+        private final long[][] _adjacent, _reach;
+
+        /** The tables computed so far, by side. */
+        private static final HashMap<Integer, Geometry> GEOMETRIES =
+            new HashMap<>();
+    }
+
+    /** The PieceColors, by ordinal. */
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    /** Initial size of the undo journal. */
+    private static final int INITIAL_JOURNAL_SIZE = 256;
+
+    /** Tables for my size. */
+    private final Geometry _geometry;
+    /** Ordinal of the contents of each square. */
+    private final byte[] _cells;
+    /** Masks of the squares holding red pieces, blue pieces, and
+     *  blocks. */
+    private final long[][] _sets;
+    /** Numbers of red and blue pieces. */
+    private final int[] _counts = new int[2];
+    /** Number of empty squares. */
+    private int _empty;
+    /** Player to move. */
+    private PieceColor _whoseMove;
+    /** Number of consecutive jumps just made. */
+    private int _jumps;
+    /** Winner, or null if the game is not over. */
+    private PieceColor _winner;
+    /** Undo journal, as for Board: for each move, -1 - the previous
+     *  value of _jumps, followed by SQ << 2 | C for each square SQ that
+     *  the move changed from contents with ordinal C. */
+    private int[] _journal = new int[INITIAL_JOURNAL_SIZE];
+    /** Number of entries in _journal. */
+    private int _journalSize;
+    /** The value of _stamp when each square last received a clone move
+     *  from generate. */
+    private final int[] _stamps;
+    /** Counter distinguishing calls to generate. */
+    private int _stamp;
+}
@@ -0,0 +1,79 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the SizedBoard and SizedSearch classes.
+ *  @author Brian Chiang
+ */
+public class SizedBoardTest {
+
+    @Test
+    public void testSizedBoard() {
+        Random random = new Random(22);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 20; game += 1) {
+            Board b = new Board();
+            SizedBoard sized = new SizedBoard(Move.SIDE);
+            int[] sizedMoves = new int[sized.maxMoves()];
+            if (game % 2 == 1) {
+                b.setBlock("c3");
+                sized.setBlock(2, 2);
+            }
+            while (b.getWinner() == null) {
+                assertNull("game over early", sized.getWinner());
+                assertEquals(b.numPieces(RED), sized.numPieces(RED));
+                assertEquals(b.numPieces(BLUE), sized.numPieces(BLUE));
+                assertEquals(b.whoseMove(), sized.whoseMove());
+                int n = MoveGenerator.generate(b, moves, true);
+                int m = sized.generate(sizedMoves);
+                assertEquals("wrong number of moves", n, m);
+                for (int i = 0; i < m; i += 1) {
+                    int code = sizedMoves[i];
+                    sizedMoves[i] = code == SizedBoard.PASS
+                        ? Move.pass().code()
+                        : MoveGenerator.code(code / sized.squares(),
+                                             code % sized.squares());
+                }
+                Arrays.sort(moves, 0, n);
+                Arrays.sort(sizedMoves, 0, m);
+                assertArrayEquals("wrong moves", Arrays.copyOf(moves, n),
+                                  Arrays.copyOf(sizedMoves, m));
+                int code = moves[random.nextInt(n)];
+                b.makeMove(Move.move(code));
+                sized.makeMove(code == Move.pass().code() ? SizedBoard.PASS
+                               : sized.move(MoveGenerator.from(code),
+                                            MoveGenerator.to(code)));
+            }
+            assertEquals("wrong winner", b.getWinner(), sized.getWinner());
+            while (b.numMoves() > 0) {
+                b.undo();
+                sized.undo();
+            }
+            for (int sq = 0; sq < sized.squares(); sq += 1) {
+                assertEquals("undo failed", b.get(Bitboard.square(sq)),
+                             sized.get(sq));
+            }
+        }
+        SizedBoard big = new SizedBoard(11);
+        assertEquals(121, big.squares());
+        assertEquals(RED, big.get(big.square(10, 0)));
+        assertEquals(BLUE, big.get(big.square(10, 10)));
+        SizedSearch search = new SizedSearch();
+        search.search(big, 2);
+        assertTrue("no positions searched", search.nodes() > 0);
+        assertEquals(0, big.captures(search.bestMove()));
+        big.makeMove(search.bestMove());
+        assertEquals(3, big.numPieces(RED));
+    }
+
+}
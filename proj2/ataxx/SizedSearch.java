@@ -0,0 +1,104 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A fixed-depth alpha-beta search of SizedBoards, for analysing
+ *  variants of the game on boards of other sizes.  Positions are valued
+ *  by the difference in pieces from the point of view of the player to
+ *  move, and moves are searched in decreasing order of the number of
+ *  pieces they capture.  There is no transposition table, as AI's keys
+ *  and moves assume the standard board.
+ *  @author Brian Chiang
+ */
+class SizedSearch {
+
+    /** Value of a won position at depth 0 (wins sooner are worth
+     *  more). */
+    static final int WIN = 1_000_000;
+
+    /** Return the value of BOARD to the player to move, searching DEPTH
+     *  plies, and set bestMove() to the best move found. */
+    int search(SizedBoard board, int depth) {
+        if (_buffers == null || _buffers.length < depth + 1
+            || _buffers[0].length < board.maxMoves()) {
+            _buffers = new int[depth + 1][board.maxMoves()];
+            _priorities = new int[board.maxMoves()];
+        }
+        _bestMove = SizedBoard.PASS;
+        return search(board, depth, depth, -INFTY, INFTY);
+    }
+
+    /** Return the best move found by the last search. */
+    int bestMove() {
+        return _bestMove;
+    }
+
+    /** Return the number of positions visited so far. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the value of BOARD to the player to move, searching DEPTH
+     *  more plies with bounds ALPHA and BETA, at ply ROOT - DEPTH. */
+    private int search(SizedBoard board, int root, int depth,
+                       int alpha, int beta) {
+        _nodes += 1;
+        PieceColor winner = board.getWinner();
+        PieceColor me = board.whoseMove();
+        if (winner != null) {
+            return winner == me ? WIN + depth
+                : winner == me.opposite() ? -WIN - depth : 0;
+        } else if (depth == 0) {
+            return board.numPieces(me) - board.numPieces(me.opposite());
+        }
+        int[] moves = _buffers[depth];
+        int n = board.generate(moves);
+        order(board, moves, n);
+        int best = -INFTY;
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(moves[i]);
+            int value = -search(board, root, depth - 1, -beta, -alpha);
+            board.undo();
+            if (value > best) {
+                best = value;
+                if (depth == root) {
+                    _bestMove = moves[i];
+                }
+                alpha = Math.max(alpha, value);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Sort the first N MOVES for BOARD in decreasing order of
+     *  captures, keeping moves that capture equally in order. */
+    private void order(SizedBoard board, int[] moves, int n) {
+        for (int i = 0; i < n; i += 1) {
+            int move = moves[i], priority = board.captures(move);
+            int j;
+            for (j = i; j > 0 && _priorities[j - 1] < priority; j -= 1) {
+                moves[j] = moves[j - 1];
+                _priorities[j] = _priorities[j - 1];
+            }
+            moves[j] = move;
+            _priorities[j] = priority;
+        }
+    }
+
+    /** A value greater than that of any position. */
+    private static final int INFTY = Integer.MAX_VALUE;
+
+    /** Move buffers for each remaining depth. */
+    private int[][] _buffers;
+    /** Captures by each move being ordered. */
+    private int[] _priorities;
+    /** Best move found at the root. */
+    private int _bestMove;
+    /** Positions visited. */
+    private long _nodes;
+}
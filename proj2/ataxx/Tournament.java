@@ -0,0 +1,427 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ucb.util.CommandArgs;
+
+import static ataxx.PieceColor.*;
+import static ataxx.GameException.error;
+
+/** Plays a match between two AI configurations without a display, as a
+ *  regression test of AI strength.  Run with
+ *      java ataxx.Tournament [ --games=N ] [ --seed=S ] [ --jobs=J ]
+ *                            [ --random=PLIES ] [ --record=FILE ]
+ *                            SPEC1 SPEC2
+ *  to play N games (default 100) between the configurations SPEC1 and
+ *  SPEC2, J at a time (default: one per processor).  Each SPEC is a
+ *  comma-separated list of settings: depth=D (search depth), time=MSEC
+ *  (time per move; overrides depth), threads=T, endgame=N (see
+ *  AI.setEndgame), book=FILE (opening book), and weights=FILE
+ *  (evaluation weights), as in "depth=5" or "time=200,book=book.dat".
+ *  The setting player=mcts selects a MonteCarlo player instead, for
+ *  which only time, threads, and playouts=P (playouts per move without
+ *  a time limit) apply; its search rate is in playouts.
+ *
+ *  The AIs are deterministic, so each game starts with PLIES (default 4)
+ *  random moves.  Games are played in pairs from the same opening with
+ *  the colors exchanged.  As in Game, the AIs are seeded from a seed
+ *  that increases by one for each one created, starting at S (by default,
+ *  random).  Games still going after MAX_GAME_MOVES moves are decided
+ *  by piece count.  The report gives SPEC1's wins, draws, and losses,
+ *  its score and the corresponding Elo difference with 95% confidence
+ *  intervals, and each side's average time per move and search rate,
+ *  and for AIs, totals of their search statistics (see SearchStats).
+ *  With --record, the games are also written to FILE in order, as
+ *  GameRecords whose seeds are those of their random openings (see
+ *  Replayer).
+ *  @author Brian Chiang
+ */
+public class Tournament {
+
+    /** Default number of games. */
+    static final int DEFAULT_GAMES = 100;
+
+    /** Default number of random opening moves. */
+    static final int DEFAULT_RANDOM_PLIES = 4;
+
+    /** Number of moves after which a game is decided by piece count.
+     *  Passes do not count toward the jump limit, so a player who cannot
+     *  move can otherwise be kept waiting forever by an opponent jumping
+     *  back and forth. */
+    static final int MAX_GAME_MOVES = 1000;
+
+    /** Normal deviate for a 95% confidence interval. */
+    static final double Z95 = 1.96;
+
+    /** Run the match described by ARGS0, as in the class comment. */
+    public static void main(String[] args0) {
+        CommandArgs args =
+            new CommandArgs("--games=(\\d+){0,1} --seed=(\\d+){0,1}"
+                            + " --jobs=(\\d+){0,1} --random=(\\d+){0,1}"
+                            + " --record=(.+){0,1}"
+                            + " --=(.*){2}", args0);
+        if (!args.ok() || args.get("--").size() != 2) {
+            usage();
+        }
+        int games = DEFAULT_GAMES, plies = DEFAULT_RANDOM_PLIES,
+            jobs = Runtime.getRuntime().availableProcessors();
+        long seed = (long) (Math.random() * Long.MAX_VALUE);
+        if (args.contains("--games")) {
+            games = args.getInt("--games");
+        }
+        if (args.contains("--random")) {
+            plies = args.getInt("--random");
+        }
+        if (args.contains("--jobs")) {
+            jobs = Math.max(1, args.getInt("--jobs"));
+        }
+        if (args.contains("--seed")) {
+            seed = Long.parseLong(args.getLast("--seed"));
+        }
+        try {
+            Config first = new Config(args.get("--").get(0)),
+                second = new Config(args.get("--").get(1));
+            Tournament match = new Tournament(first, second, plies, seed);
+            if (args.contains("--record")) {
+                try (OutputStream out = new BufferedOutputStream(
+                         new FileOutputStream(args.getLast("--record")))) {
+                    match._recorder = new GameRecord.Writer(out);
+                    match.play(games, jobs);
+                    match._recorder.flush();
+                }
+            } else {
+                match.play(games, jobs);
+            }
+            match.report();
+        } catch (GameException | IOException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Print a usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java ataxx.Tournament [ --games=N ] "
+                           + "[ --seed=S ] [ --jobs=J ] [ --random=PLIES ] "
+                           + "[ --record=FILE ] SPEC1 SPEC2");
+        System.err.println("  SPEC: comma-separated depth=D, time=MSEC, "
+                           + "threads=T, endgame=N, book=FILE, "
+                           + "weights=FILE, player=ai|mcts, playouts=P");
+        System.exit(1);
+    }
+
+    /** A match between configurations FIRST and SECOND whose games begin
+     *  with PLIES random moves, and whose randomness and AIs are seeded
+     *  starting from SEED. */
+    Tournament(Config first, Config second, int plies, long seed) {
+        _configs = new Config[] { first, second };
+        _plies = plies;
+        _seed = seed;
+    }
+
+    /** Play GAMES games, JOBS at a time, adding their results to my
+     *  totals. */
+    void play(int games, int jobs) {
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        try {
+            List<Future<Result>> results = new ArrayList<>();
+            for (int i = 0; i < games; i += 1) {
+                final int game = i;
+                results.add(pool.submit(() -> playGame(game)));
+            }
+            for (Future<Result> result : results) {
+                record(result.get());
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw error("game failed: %s", excp.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Print a summary of the results so far on the standard output. */
+    void report() {
+        int games = _wins + _draws + _losses;
+        if (games == 0) {
+            return;
+        }
+        double score = (_wins + 0.5 * _draws) / games;
+        double variance =
+            (_wins * sq(1 - score) + _draws * sq(0.5 - score)
+             + _losses * sq(score)) / games;
+        double margin = Z95 * Math.sqrt(variance / games);
+        System.out.printf("%s vs. %s (seed %d)%n", _configs[0], _configs[1],
+                          _seed);
+        System.out.printf("%d games: %d wins, %d draws, %d losses%n",
+                          games, _wins, _draws, _losses);
+        System.out.printf("score %.3f +/- %.3f, Elo %+.0f [%+.0f, %+.0f]%n",
+                          score, margin, elo(score), elo(score - margin),
+                          elo(score + margin));
+        for (int i = 0; i < _configs.length; i += 1) {
+            System.out.printf("%s: %.1f msec/move, %,.0f nodes/sec%n",
+                              _configs[i],
+                              _nanos[i] / 1e6 / Math.max(1, _moves[i]),
+                              _nodes[i] / Math.max(1e-9, _nanos[i] / 1e9));
+            if (_stats[i].searches() > 0) {
+                System.out.printf("  %d of %d moves searched, depth %.1f, "
+                                  + "TT hit rate %.1f%%, "
+                                  + "%.2f moves/interior node, "
+                                  + "%.1f%% of cutoffs by first move%n",
+                                  _stats[i].searches(), _stats[i].moves(),
+                                  _stats[i].averageDepth(),
+                                  100 * _stats[i].hitRate(),
+                                  _stats[i].branching(),
+                                  100 * _stats[i].firstCutoffRate());
+            }
+        }
+    }
+
+    /** Return the square of X. */
+    private static double sq(double x) {
+        return x * x;
+    }
+
+    /** Return the Elo rating difference corresponding to an expected
+     *  SCORE, limited to about +/- 1200. */
+    static double elo(double score) {
+        double clipped = Math.min(Math.max(score, 1e-3), 1 - 1e-3);
+        return -400 * Math.log10(1 / clipped - 1);
+    }
+
+    /** Play game number GAME of the match and return its result.  Games
+     *  2K and 2K + 1 have the same opening, with my first configuration
+     *  playing red in the first and blue in the second. */
+    Result playGame(int game) {
+        Random random = new Random(_seed + game / 2);
+        Board board = new Board();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < _plies && board.getWinner() == null; i += 1) {
+            int n = MoveGenerator.generate(board, moves, false);
+            board.makeMove(Move.move(moves[random.nextInt(n)]));
+        }
+        int red = game % 2;
+        Player[] players = {
+            _configs[0].player(red == 0 ? RED : BLUE, _seed + 2 * game),
+            _configs[1].player(red == 1 ? RED : BLUE, _seed + 2 * game + 1)
+        };
+        Result result = new Result();
+        while (board.getWinner() == null
+               && board.numMoves() < MAX_GAME_MOVES) {
+            if (!board.canMove(board.whoseMove())) {
+                board.makeMove(Move.pass());
+                continue;
+            }
+            int side = (board.whoseMove() == RED) == (red == 0) ? 0 : 1;
+            long nodes = players[side].nodes();
+            long start = System.nanoTime();
+            Move move = players[side].findMove(board);
+            result._nanos[side] += System.nanoTime() - start;
+            result._nodes[side] += players[side].nodes() - nodes;
+            if (players[side].stats() != null) {
+                result._stats[side].add(players[side].stats());
+            }
+            result._moves[side] += 1;
+            board.makeMove(move);
+        }
+        for (Player player : players) {
+            player.setThreads(1);
+        }
+        PieceColor winner = board.getWinner();
+        if (winner == null) {
+            int diff = board.redPieces() - board.bluePieces();
+            winner = diff > 0 ? RED : diff < 0 ? BLUE : EMPTY;
+        }
+        result._outcome =
+            winner == EMPTY ? 0 : (winner == RED) == (red == 0) ? 1 : -1;
+        result._record = new GameRecord(board, _seed + game / 2);
+        return result;
+    }
+
+    /** Add RESULT to my totals, and write its game to _recorder, if
+     *  any. */
+    private void record(Result result) {
+        if (_recorder != null) {
+            try {
+                _recorder.write(result._record);
+            } catch (IOException excp) {
+                throw error("cannot record game: %s", excp.getMessage());
+            }
+        }
+        if (result._outcome > 0) {
+            _wins += 1;
+        } else if (result._outcome < 0) {
+            _losses += 1;
+        } else {
+            _draws += 1;
+        }
+        for (int i = 0; i < _configs.length; i += 1) {
+            _moves[i] += result._moves[i];
+            _nanos[i] += result._nanos[i];
+            _nodes[i] += result._nodes[i];
+            _stats[i].add(result._stats[i]);
+        }
+    }
+
+    /** The settings for one side of a match. */
+    static class Config {
+
+        /** The configuration described by SPEC, as in the class comment
+         *  of Tournament. */
+        Config(String spec) {
+            _spec = spec;
+            for (String setting : spec.split(",")) {
+                String[] keyValue = setting.split("=", 2);
+                if (keyValue.length != 2) {
+                    throw error("bad setting: %s", setting);
+                }
+                String value = keyValue[1];
+                try {
+                    switch (keyValue[0]) {
+                    case "depth":
+                        _depth = Integer.parseInt(value);
+                        break;
+                    case "time":
+                        _timeLimit = Long.parseLong(value);
+                        break;
+                    case "threads":
+                        _threads = Integer.parseInt(value);
+                        break;
+                    case "endgame":
+                        _endgame = Integer.parseInt(value);
+                        break;
+                    case "player":
+                        if (!value.matches("ai|mcts")) {
+                            throw error("bad setting: %s", setting);
+                        }
+                        _kind = value;
+                        break;
+                    case "playouts":
+                        _playouts = Integer.parseInt(value);
+                        break;
+                    case "weights":
+                        try (Reader inp = new FileReader(value)) {
+                            _evaluator = WeightedEvaluator.read(inp);
+                        }
+                        break;
+                    case "book":
+                        try (InputStream in = new BufferedInputStream(
+                                 new FileInputStream(value))) {
+                            _book = OpeningBook.read(in);
+                        }
+                        break;
+                    default:
+                        throw error("unknown setting: %s", setting);
+                    }
+                } catch (NumberFormatException | IOException excp) {
+                    throw error("bad setting: %s", setting);
+                }
+            }
+        }
+
+        /** Return a new player with my settings playing COLOR, seeded
+         *  with SEED. */
+        Player player(PieceColor color, long seed) {
+            if (_kind.equals("mcts")) {
+                MonteCarlo mcts = new MonteCarlo(null, color, seed);
+                mcts.setTimeLimit(_timeLimit);
+                mcts.setPlayouts(_playouts);
+                mcts.setThreads(_threads);
+                return mcts;
+            }
+            AI ai = new AI(null, color, seed);
+            ai.setTimeLimit(_timeLimit);
+            if (_depth > 0) {
+                ai.setDepth(_depth);
+            }
+            ai.setThreads(_threads);
+            ai.setEndgame(_endgame);
+            ai.setBook(_book);
+            if (_evaluator != null) {
+                ai.setEvaluator(_evaluator);
+            }
+            return ai;
+        }
+
+        @Override
+        public String toString() {
+            return _spec;
+        }
+
+        /** My description. */
+        private final String _spec;
+        /** Search depth, or 0 for the AI's default. */
+        private int _depth;
+        /** Time limit per move in milliseconds, or 0 for none. */
+        private long _timeLimit;
+        /** Number of search threads. */
+        private int _threads = 1;
+        /** Largest number of empty squares for the endgame solver. */
+        private int _endgame = EndgameSolver.DEFAULT_EMPTIES;
+        /** Kind of player: "ai" or "mcts". */
+        private String _kind = "ai";
+        /** Playouts per move for MonteCarlo without a time limit. */
+        private int _playouts = MonteCarlo.DEFAULT_PLAYOUTS;
+        /** Opening book, or null. */
+        private OpeningBook _book;
+        /** Evaluator, or null for the default. */
+        private Evaluator _evaluator;
+    }
+
+    /** The outcome of one game and the work done by each side. */
+    static class Result {
+        /** 1, 0, or -1 as the first configuration won, drew, or lost. */
+        private int _outcome;
+        /** Number of searches by each configuration. */
+        private final int[] _moves = new int[2];
+        /** Total search time of each configuration in nanoseconds. */
+        private final long[] _nanos = new long[2];
+        /** Positions visited by each configuration. */
+        private final long[] _nodes = new long[2];
+        /** The game played. */
+        private GameRecord _record;
+        /** Total search statistics of each configuration. */
+        private final SearchStats[] _stats = {
+            new SearchStats(), new SearchStats()
+        };
+    }
+
+    /** The two configurations being compared. */
+    private final Config[] _configs;
+    /** Number of random opening moves. */
+    private final int _plies;
+    /** Starting seed. */
+    private final long _seed;
+    /** Destination of the games played, or null. */
+    private GameRecord.Writer _recorder;
+    /** Results for the first configuration. */
+    private int _wins, _draws, _losses;
+    /** Number of searches by each configuration. */
+    private final long[] _moves = new long[2];
+    /** Total search time of each configuration in nanoseconds. */
+    private final long[] _nanos = new long[2];
+    /** Positions visited by each configuration. */
+    private final long[] _nodes = new long[2];
+    /** Total search statistics of each configuration. */
+    private final SearchStats[] _stats = {
+        new SearchStats(), new SearchStats()
+    };
+}
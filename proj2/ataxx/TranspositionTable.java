@@ -0,0 +1,180 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+/** A fixed-size table of previously searched positions, indexed by their
+ *  Zobrist keys (see Board.key()).  Each entry records the depth to which
+ *  its position was searched, the score found, whether that score is
+ *  exact or only a bound, the best move found, and the generation (see
+ *  newSearch) of the search that stored it.
+ *
+ *  The table is shared without locks by all the threads of a parallel
+ *  search.  It is one flat array of longs, two per entry: the entry's
+ *  contents packed into a single long (decoded by depth, bound, score,
+ *  and move), preceded by that long XORed with the entry's key.  A
+ *  thread may read an entry while another is overwriting it, and so see
+ *  the two words of different entries, but then the XOR of the two
+ *  words will (almost certainly) not be the key probed for, and the
+ *  entry is treated as missing.
+ *
+ *  Entries are grouped in buckets of BUCKET_SIZE, which together occupy
+ *  64 bytes, the size of a typical cache line, so that a probe or store
+ *  normally touches one line.  A store replaces the entry for the same
+ *  key, if any, or else an empty entry, or else the one of least
+ *  value, where older generations and shallower searches have less
+ *  value.
+ *  @author Brian Chiang
+ */
+class TranspositionTable {
+
+    /** Bound type: the score is exact. */
+    static final int EXACT = 0;
+    /** Bound type: the score is a lower bound (the search failed high). */
+    static final int LOWER = 1;
+    /** Bound type: the score is an upper bound (the search failed low). */
+    static final int UPPER = 2;
+
+    /** Result of probe when there is no entry. */
+    static final long MISSING = 0;
+
+    /** Number of entries in a bucket. */
+    static final int BUCKET_SIZE = 4;
+
+    /** Default number of buckets. */
+    static final int DEFAULT_BUCKETS = 1 << 17;
+
+    /** A table with DEFAULT_BUCKETS buckets. */
+    TranspositionTable() {
+        this(DEFAULT_BUCKETS);
+    }
+
+    /** A table with BUCKETS buckets.  BUCKETS must be a power of 2. */
+    TranspositionTable(int buckets) {
+        assert Integer.bitCount(buckets) == 1;
+        _mask = buckets - 1;
+        _table = new long[2 * BUCKET_SIZE * buckets];
+    }
+
+    /** Remove all entries.  There must be no search in progress. */
+    void clear() {
+        Arrays.fill(_table, MISSING);
+    }
+
+    /** Start a new generation of entries, so that subsequent stores
+     *  prefer to replace the entries stored before.  Called before each
+     *  search, while no other thread is using me. */
+    void newSearch() {
+        _generation = (_generation + 1) & GENERATION_MASK;
+    }
+
+    /** Return the entry for KEY, packed as described in the class comment,
+     *  or MISSING if there is none. */
+    long probe(long key) {
+        int base = bucket(key);
+        for (int slot = base; slot < base + 2 * BUCKET_SIZE; slot += 2) {
+            long data = _table[slot + 1];
+            if (data != MISSING && (_table[slot] ^ data) == key) {
+                return data;
+            }
+        }
+        return MISSING;
+    }
+
+    /** Return the depth recorded in ENTRY (as returned by probe). */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xff;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) recorded in
+     *  ENTRY. */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    /** Return the score recorded in ENTRY. */
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    /** Return the best move recorded in ENTRY, or null if none was. */
+    static Move move(long entry) {
+        int code = (int) (entry >>> MOVE_SHIFT) & 0xfff;
+        return code == 0 ? null : Move.move(code - 1);
+    }
+
+    /** Return the generation recorded in ENTRY. */
+    static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /** Record that the position with KEY, searched to DEPTH, has SCORE,
+     *  which is a bound of type BOUND, and that its best move is MOVE
+     *  (null if unknown). */
+    void store(long key, int depth, int bound, int score, Move move) {
+        int base = bucket(key);
+        int victim = base, victimValue = Integer.MAX_VALUE;
+        for (int slot = base; slot < base + 2 * BUCKET_SIZE; slot += 2) {
+            long data = _table[slot + 1];
+            if (data == MISSING || (_table[slot] ^ data) == key) {
+                victim = slot;
+                break;
+            }
+            int age = (_generation - generation(data)) & GENERATION_MASK;
+            int value = depth(data) - AGE_WEIGHT * age;
+            if (value < victimValue) {
+                victim = slot;
+                victimValue = value;
+            }
+        }
+        long data = pack(depth, bound, score, move)
+            | (long) _generation << GENERATION_SHIFT;
+        _table[victim] = key ^ data;
+        _table[victim + 1] = data;
+    }
+
+    /** Return the packed form of an entry for DEPTH, BOUND, SCORE, and
+     *  MOVE, of generation 0. */
+    static long pack(int depth, int bound, int score, Move move) {
+        long code = move == null ? 0 : move.code() + 1;
+        return PRESENT | code << MOVE_SHIFT | (long) bound << BOUND_SHIFT
+            | (long) depth << DEPTH_SHIFT | (score & 0xffffffffL);
+    }
+
+    /** Return the first slot of the bucket for KEY. */
+    private int bucket(long key) {
+        return 2 * BUCKET_SIZE * (int) ((key ^ (key >>> 32)) & _mask);
+    }
+
+    /* Layout of a packed entry: bits 0-31 hold the score, 32-39 the depth,
+     * 40-41 the bound type, 42-53 one more than the code of the best move
+     * (0 for none), bit 54 is always set, so that no entry is MISSING,
+     * and bits 55-62 hold the generation. */
+
+    /** Position of the depth in an entry. */
+    private static final int DEPTH_SHIFT = 32;
+    /** Position of the bound type in an entry. */
+    private static final int BOUND_SHIFT = 40;
+    /** Position of the move in an entry. */
+    private static final int MOVE_SHIFT = 42;
+    /** Bit present in every entry. */
+    private static final long PRESENT = 1L << 54;
+    /** Position of the generation in an entry. */
+    private static final int GENERATION_SHIFT = 55;
+    /** Mask for generation numbers, which wrap around. */
+    private static final int GENERATION_MASK = 0xff;
+    /** Depth by which an entry's value falls per generation of age when
+     *  choosing which to replace. */
+    private static final int AGE_WEIGHT = 4;
+
+    /** Mask selecting a bucket number from a key. */
+    private final int _mask;
+    /** Pairs of words for each entry: key XOR data, and data (MISSING
+     *  if empty). */
+    private final long[] _table;
+    /** Current generation. */
+    private int _generation;
+}
@@ -0,0 +1,82 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/** Tests of the TranspositionTable class.
+ *  @author Brian Chiang
+ */
+public class TranspositionTableTest {
+
+    /** Return the score stored for KEY by testStoreAndProbe. */
+    private static int ttScore(long key) {
+        return (int) (key >>> 20) - (1 << 30);
+    }
+
+    /** Return the move stored for KEY by testStoreAndProbe. */
+    private static Move ttMove(long key) {
+        return Move.move(1 + (int) ((key >>> 8) % (Move.NUM_MOVES - 1)));
+    }
+
+    @Test
+    public void testStoreAndProbe() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(64);
+        long[] keys = new long[2000];
+        Random random = new Random(9);
+        for (int i = 0; i < keys.length; i += 1) {
+            keys[i] = random.nextLong() & Long.MAX_VALUE;
+        }
+        table.store(keys[0], 7, TranspositionTable.LOWER, -42,
+                    Move.move("a7-b6"));
+        long entry = table.probe(keys[0]);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER,
+                     TranspositionTable.bound(entry));
+        assertEquals(-42, TranspositionTable.score(entry));
+        assertEquals(Move.move("a7-b6"), TranspositionTable.move(entry));
+        assertEquals(TranspositionTable.MISSING, table.probe(keys[1]));
+
+        AtomicInteger errors = new AtomicInteger(), hits = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t += 1) {
+            Random rand = new Random(t);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20000; i += 1) {
+                    long key = keys[rand.nextInt(keys.length)];
+                    int depth = (int) (key & 0x3f);
+                    if (rand.nextBoolean()) {
+                        table.store(key, depth, (int) (key % 3),
+                                    ttScore(key), ttMove(key));
+                        continue;
+                    }
+                    long e = table.probe(key);
+                    if (e == TranspositionTable.MISSING) {
+                        continue;
+                    }
+                    hits.incrementAndGet();
+                    if (TranspositionTable.depth(e) != depth
+                        || TranspositionTable.bound(e) != key % 3
+                        || TranspositionTable.score(e) != ttScore(key)
+                        || TranspositionTable.move(e) != ttMove(key)) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("no entries found", hits.get() > 0);
+        assertEquals("entries mixed up", 0, errors.get());
+    }
+
+}
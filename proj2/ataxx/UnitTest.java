@@ -14,8 +14,11 @@ public class UnitTest {
     /** Run the JUnit tests in this package. Add xxxTest.class entries to
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
-        textui.runClasses(CommandTest.class, MoveTest.class,
-                          BoardTest.class);
+        textui.runClasses(CommandTest.class, MoveTest.class, BoardTest.class,
+                          AITest.class, EndgameSolverTest.class,
+                          MonteCarloTest.class, GameRecordTest.class,
+                          TranspositionTableTest.class, SizedBoardTest.class,
+                          AnalyzerTest.class, ServerTest.class);
     }
 
 }
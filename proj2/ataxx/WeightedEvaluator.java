@@ -0,0 +1,205 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.Arrays;
+
+import static ataxx.Bitboard.*;
+import static ataxx.GameException.error;
+import static ataxx.PieceColor.*;
+
+/** An Evaluator that computes a weighted sum of features of a position.
+ *  Each feature is the difference between its values for the player to
+ *  move and for the opponent:
+ *      material: pieces.
+ *      mobility: empty squares the player can move to.
+ *      frontier: pieces next to an empty square that the opponent
+ *            can move to, and so liable to capture.
+ *      holes: empty squares all of whose neighbors are the player's
+ *            pieces or blocks, where an opponent's jump would capture
+ *            every neighbor.
+ *      stable: pieces with no empty neighbor, which cannot be captured
+ *            on the next move.
+ *      center: pieces within one row and column of the center square.
+ *      edge: pieces on the edge of the board.
+ *      liberties: pairs of a piece and an adjacent empty square.
+ *  The last three are read from the board's accumulated features (see
+ *  Board.accumulated), and so cost the same however they are defined.
+ *
+ *  Weights are read from text files (see read) containing a line
+ *      NAME WEIGHT
+ *  for each feature, where blank lines and lines starting with "#" are
+ *  ignored.  Such files are written by EvalTuner.
+ *  @author Brian Chiang
+ */
+class WeightedEvaluator implements Evaluator {
+
+    /** Names of the features, in the order used by features and
+     *  weights. */
+    static final String[] FEATURES = {
+        "material", "mobility", "frontier", "holes", "stable",
+        "center", "edge", "liberties"
+    };
+
+    /** Resource containing the default weights. */
+    static final String DEFAULT_WEIGHTS = "ataxx/weights.txt";
+
+    /** An evaluator using WEIGHTS, indexed as FEATURES. */
+    WeightedEvaluator(int[] weights) {
+        if (weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("wrong number of weights");
+        }
+        _weights = weights.clone();
+    }
+
+    /** Return an evaluator with the default weights: those in the
+     *  resource DEFAULT_WEIGHTS, or just material if that is missing. */
+    static WeightedEvaluator standard() {
+        InputStream resource = WeightedEvaluator.class.getClassLoader()
+            .getResourceAsStream(DEFAULT_WEIGHTS);
+        if (resource != null) {
+            try (Reader inp = new InputStreamReader(resource)) {
+                return read(inp);
+            } catch (IOException | GameException excp) {
+                /* Fall through. */
+            }
+        }
+        int[] weights = new int[FEATURES.length];
+        weights[0] = 100;
+        return new WeightedEvaluator(weights);
+    }
+
+    /** Return an evaluator with the weights read from INP, which is left
+     *  open.  Features missing from INP have weight 0. */
+    static WeightedEvaluator read(Reader inp) throws IOException {
+        int[] weights = new int[FEATURES.length];
+        BufferedReader lines = new BufferedReader(inp);
+        for (String line = lines.readLine(); line != null;
+             line = lines.readLine()) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            int f = Arrays.asList(FEATURES).indexOf(fields[0]);
+            if (fields.length != 2 || f < 0) {
+                throw error("bad weight line: %s", line);
+            }
+            try {
+                weights[f] = Integer.parseInt(fields[1]);
+            } catch (NumberFormatException excp) {
+                throw error("bad weight line: %s", line);
+            }
+        }
+        return new WeightedEvaluator(weights);
+    }
+
+    /** Write my weights to OUT in the form read by read. */
+    void write(PrintWriter out) {
+        for (int f = 0; f < FEATURES.length; f += 1) {
+            out.printf("%s %d%n", FEATURES[f], _weights[f]);
+        }
+        out.flush();
+    }
+
+    /** Return a copy of my weights, indexed as FEATURES. */
+    int[] weights() {
+        return _weights.clone();
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        PieceColor me = board.whoseMove();
+        long mine = board.pieces(me), theirs = board.pieces(me.opposite());
+        long empty = board.pieces(EMPTY);
+        long myReach = reach(mine) & empty;
+        long theirReach = reach(theirs) & empty;
+        int score = 0;
+        for (int f = 0; f < FEATURES.length; f += 1) {
+            if (_weights[f] != 0) {
+                score += _weights[f] * feature(f, board, mine, theirs,
+                                               myReach, theirReach);
+            }
+        }
+        return score;
+    }
+
+    /** Store the values of FEATURES for BOARD into VALUES, so that
+     *  evaluate(BOARD) is the sum of VALUES weighted by weights(). */
+    static void features(Board board, int[] values) {
+        PieceColor me = board.whoseMove();
+        long mine = board.pieces(me), theirs = board.pieces(me.opposite());
+        long empty = board.pieces(EMPTY);
+        long myReach = reach(mine) & empty;
+        long theirReach = reach(theirs) & empty;
+        for (int f = 0; f < FEATURES.length; f += 1) {
+            values[f] = feature(f, board, mine, theirs, myReach, theirReach);
+        }
+    }
+
+    /** Return the value of feature number F (see FEATURES) for BOARD, on
+     *  which the player to move has pieces MINE and can move to the
+     *  empty squares MYREACH, and the opponent has THEIRS and can move
+     *  to THEIRREACH. */
+    private static int feature(int f, Board board, long mine, long theirs,
+                               long myReach, long theirReach) {
+        long empty = board.pieces(EMPTY), blocks = board.pieces(BLOCKED);
+        switch (f) {
+        case 0:
+            return Long.bitCount(mine) - Long.bitCount(theirs);
+        case 1:
+            return Long.bitCount(myReach) - Long.bitCount(theirReach);
+        case 2:
+            return Long.bitCount(mine & dilate(theirReach))
+                - Long.bitCount(theirs & dilate(myReach));
+        case 3:
+            return holes(empty, mine | blocks)
+                - holes(empty, theirs | blocks);
+        case 4:
+            long open = dilate(empty);
+            return Long.bitCount(mine & ~open)
+                - Long.bitCount(theirs & ~open);
+        case 5:
+            return difference(board, 0) + difference(board, 1);
+        case 6:
+            return difference(board, RINGS - 1);
+        case 7:
+            return difference(board, Board.LIBERTIES);
+        default:
+            throw new IllegalArgumentException("no such feature");
+        }
+    }
+
+    /** Return the difference between the accumulated features number K
+     *  (see Board.accumulated) of the player to move on BOARD and of the
+     *  opponent. */
+    private static int difference(Board board, int k) {
+        PieceColor me = board.whoseMove();
+        return board.accumulated(me, k) - board.accumulated(me.opposite(), k);
+    }
+
+    /** Return the number of squares in EMPTY all of whose neighbors are
+     *  in WALLS. */
+    private static int holes(long empty, long walls) {
+        int count;
+        count = 0;
+        for (long sqs = empty & ~dilate(ALL & ~walls & ~empty); sqs != 0;
+             sqs &= sqs - 1) {
+            if ((adjacent(Long.numberOfTrailingZeros(sqs)) & ~walls) == 0) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /** Weights of the features, indexed as FEATURES. */
+    private final int[] _weights;
+}
@@ -0,0 +1,107 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JMH benchmark of command parsing, over a log of a million commands
+ *  like those of the test scripts and recorded games: mostly moves, with
+ *  some other commands, comments, blank lines, and mistakes.  Compares
+ *  Command.parseCommand with the pattern-by-pattern parsing it replaced
+ *  (Command.parseWithPatterns).
+ *  @author Brian Chiang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark {
+
+    /** Number of lines in the log. */
+    static final int LINES = 1_000_000;
+
+    /** Seed for generating the log. */
+    static final long SEED = 25;
+
+    /** Commands other than moves, and mistakes, in the log. */
+    static final String[] OTHERS = {
+        "new", "auto blue", "manual red", "block c3", "seed 61", "dump",
+        "# comment", "", "  A7-B6 ", "-", "quit", "board", "undo",
+        "auto red mcts", "a7-a8", "bogus", "q",
+    };
+
+    /** Return the log: LINES commands, of which about four in five are
+     *  moves between random squares (which are not necessarily legal,
+     *  but parse as moves), generated from SEED. */
+    static String[] log() {
+        Random random = new Random(SEED);
+        String[] result = new String[LINES];
+        for (int i = 0; i < LINES; i += 1) {
+            if (random.nextInt(5) == 0) {
+                result[i] = OTHERS[random.nextInt(OTHERS.length)];
+            } else {
+                result[i] = square(random) + "-" + square(random);
+            }
+        }
+        return result;
+    }
+
+    /** Return the name of a square chosen with RANDOM. */
+    static String square(Random random) {
+        return "" + (char) ('a' + random.nextInt(Move.SIDE))
+            + (char) ('1' + random.nextInt(Move.SIDE));
+    }
+
+    /** Generate the log. */
+    @Setup
+    public void setUp() {
+        _log = log();
+    }
+
+    /** Parse the log with Command.parseCommand. */
+    @Benchmark
+    public int parse() {
+        int errors;
+        errors = 0;
+        for (String line : _log) {
+            if (Command.parseCommand(line).commandType()
+                == Command.Type.ERROR) {
+                errors += 1;
+            }
+        }
+        return errors;
+    }
+
+    /** Parse the log with Command.parseWithPatterns. */
+    @Benchmark
+    public int parseWithPatterns() {
+        int errors;
+        errors = 0;
+        for (String line : _log) {
+            if (Command.parseWithPatterns(line).commandType()
+                == Command.Type.ERROR) {
+                errors += 1;
+            }
+        }
+        return errors;
+    }
+
+    /** The log. */
+    private String[] _log;
+}
@@ -0,0 +1,172 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JMH microbenchmarks of the Ataxx engine's basic operations, each run
+ *  over a fixed corpus of mid-game positions.  Build and run with
+ *  'make run' in this directory (see the Makefile).
+ *  @author Brian Chiang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    /** Number of positions in the corpus. */
+    static final int POSITIONS = 32;
+
+    /** Fewest and most random moves leading to a corpus position. */
+    static final int MIN_PLIES = 10, MAX_PLIES = 40;
+
+    /** Seed for the random games that produce the corpus. */
+    static final long SEED = 61;
+
+    /** Return the corpus: POSITIONS positions, each reached by between
+     *  MIN_PLIES and MAX_PLIES random moves from the start, in which
+     *  the player to move has a move. */
+    static Board[] corpus() {
+        Random random = new Random(SEED);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        ArrayList<Board> result = new ArrayList<>();
+        while (result.size() < POSITIONS) {
+            Board board = new Board();
+            int plies = MIN_PLIES + random.nextInt(MAX_PLIES - MIN_PLIES + 1);
+            for (int i = 0; i < plies && board.getWinner() == null; i += 1) {
+                int n = MoveGenerator.generate(board, moves, false);
+                board.makeMove(Move.move(moves[random.nextInt(n)]));
+            }
+            if (board.getWinner() == null
+                && board.canMove(board.whoseMove())) {
+                result.add(board);
+            }
+        }
+        return result.toArray(new Board[0]);
+    }
+
+    /** Set up the corpus and the legal moves in each of its positions. */
+    @Setup
+    public void setUp() {
+        _boards = corpus();
+        _moves = new int[_boards.length][];
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < _boards.length; i += 1) {
+            int n = MoveGenerator.generate(_boards[i], buffer, false);
+            _moves[i] = Arrays.copyOf(buffer, n);
+        }
+    }
+
+    /** Return the next corpus position in rotation. */
+    private Board next() {
+        _next = (_next + 1) % _boards.length;
+        return _boards[_next];
+    }
+
+    /** Make and undo one legal move. */
+    @Benchmark
+    public long makeUndo() {
+        Board board = next();
+        int[] moves = _moves[_next];
+        _move = (_move + 1) % MoveGenerator.MAX_MOVES;
+        board.makeMove(Move.move(moves[_move % moves.length]));
+        long key = board.key();
+        board.undo();
+        return key;
+    }
+
+    /** Test whether the player to move can move. */
+    @Benchmark
+    public boolean canMove() {
+        Board board = next();
+        return board.canMove(board.whoseMove());
+    }
+
+    /** Generate all legal moves, as the search does (AI.possMoves
+     *  formerly did this by allocating a list). */
+    @Benchmark
+    public int generateMoves() {
+        return MoveGenerator.generate(next(), _buffer, true);
+    }
+
+    /** Copy a board. */
+    @Benchmark
+    public Board copy() {
+        return new Board(next());
+    }
+
+    /** Reset a board to the initial position, as done before each game
+     *  replayed (see Replayer). */
+    @Benchmark
+    public Board clear() {
+        _scratch.clear();
+        return _scratch;
+    }
+
+    /** Fixed-depth searches from a fresh transposition table. */
+    @State(Scope.Thread)
+    public static class Search {
+
+        /** Search depth. */
+        @Param({ "3", "4" })
+        public int depth;
+
+        /** Create the AI. */
+        @Setup
+        public void setUp() {
+            _ai = new AI(null, PieceColor.RED, 0);
+            _ai.setTimeLimit(0);
+        }
+
+        /** Discard the results of the previous search, so that each
+         *  search does the same work. */
+        @Setup(Level.Invocation)
+        public void clear() {
+            _ai.clearTable();
+        }
+
+        /** The AI doing the searches. */
+        private AI _ai;
+    }
+
+    /** Search the next corpus position to a fixed depth. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Move search(Search search) {
+        return search._ai.findMove(next(), search.depth);
+    }
+
+    /** The corpus. */
+    private Board[] _boards;
+    /** Legal moves in each corpus position. */
+    private int[][] _moves;
+    /** Index of the current corpus position. */
+    private int _next;
+    /** Counter selecting the move to make in makeUndo. */
+    private int _move;
+    /** Buffer for generated moves. */
+    private final int[] _buffer = new int[MoveGenerator.MAX_MOVES];
+    /** Board cleared by clear. */
+    private final Board _scratch = new Board();
+}
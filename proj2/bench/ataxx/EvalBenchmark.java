@@ -0,0 +1,111 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static ataxx.Bitboard.*;
+import static ataxx.PieceColor.*;
+
+/** JMH microbenchmarks comparing the cost of evaluating the first
+ *  FEATURES of the board's accumulated features (see Board.accumulated)
+ *  by reading the accumulators with that of computing them from the
+ *  pieces, over the corpus of EngineBenchmark.  The first should stay
+ *  flat as FEATURES grows; the second grows with it.
+ *  @author Brian Chiang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBenchmark {
+
+    /** Number of features evaluated. */
+    @Param({ "1", "3", "5" })
+    public int features;
+
+    /** Set up the corpus. */
+    @Setup
+    public void setUp() {
+        _boards = EngineBenchmark.corpus();
+    }
+
+    /** Return the next corpus position in rotation. */
+    private Board next() {
+        _next = (_next + 1) % _boards.length;
+        return _boards[_next];
+    }
+
+    /** Sum the differences between the players' first FEATURES
+     *  accumulated features, as read from the board. */
+    @Benchmark
+    public int incremental() {
+        Board board = next();
+        PieceColor me = board.whoseMove(), other = me.opposite();
+        int sum;
+        sum = 0;
+        for (int k = 0; k < features; k += 1) {
+            sum += board.accumulated(me, k) - board.accumulated(other, k);
+        }
+        return sum;
+    }
+
+    /** Compute the same sum as incremental, finding each feature from
+     *  the pieces on the board. */
+    @Benchmark
+    public int scan() {
+        Board board = next();
+        PieceColor me = board.whoseMove();
+        long mine = board.pieces(me), theirs = board.pieces(me.opposite());
+        long empty = board.pieces(EMPTY);
+        int sum;
+        sum = 0;
+        for (int k = 0; k < features; k += 1) {
+            if (k == Board.LIBERTIES) {
+                sum += liberties(mine, empty) - liberties(theirs, empty);
+                continue;
+            }
+            for (int b = 0; b < SQUARES; b += 1) {
+                if (ring(b) == k) {
+                    long mask = 1L << b;
+                    sum += ((mine & mask) != 0 ? 1 : 0)
+                        - ((theirs & mask) != 0 ? 1 : 0);
+                }
+            }
+        }
+        return sum;
+    }
+
+    /** Return the number of pairs of a square in PIECES and an adjacent
+     *  square in EMPTY. */
+    private static int liberties(long pieces, long empty) {
+        int count;
+        count = 0;
+        for (long sqs = pieces; sqs != 0; sqs &= sqs - 1) {
+            count += Long.bitCount(adjacent(Long.numberOfTrailingZeros(sqs))
+                                   & empty);
+        }
+        return count;
+    }
+
+    /** The corpus. */
+    private Board[] _boards;
+    /** Index of the current corpus position. */
+    private int _next;
+}